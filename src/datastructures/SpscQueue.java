@@ -0,0 +1,102 @@
+package datastructures;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded first-in-first-out queue for handing elements from exactly one producer thread to
+ * exactly one consumer thread without locks. Elements live in a ring buffer whose capacity is
+ * a power of two; the producer only writes the tail index and the consumer only writes the head
+ * index, and each keeps a cached copy of the other's index so that it rarely has to read it.
+ * <p>
+ * offer() must only be called by the producer and poll() only by the consumer.
+ */
+public class SpscQueue<E> {
+
+    /** The ring buffer; slot i % capacity holds the i-th element offered */
+    private final Object[] buffer;
+
+    /** buffer.length - 1, for computing slot indices */
+    private final int mask;
+
+    /** Number of elements polled so far (written only by the consumer) */
+    private final AtomicLong head = new AtomicLong();
+
+    /** Number of elements offered so far (written only by the producer) */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** The producer's last reading of head */
+    private long headCache;
+
+    /** The consumer's last reading of tail */
+    private long tailCache;
+
+    /**
+     * Creates: an empty queue that holds at least capacity elements.
+     * Requires: 0 < capacity <= 2^30.
+     */
+    public SpscQueue(int capacity) {
+        assert capacity > 0 && capacity <= 1 << 30;
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        buffer = new Object[size];
+        mask = size - 1;
+    }
+
+    /** Returns: the number of elements the queue can hold. */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Effect: add e at the tail of the queue if there is room. Returns: whether e was added.
+     * Requires: e is not null, and this is called by the producer thread.
+     */
+    public boolean offer(E e) {
+        assert e != null;
+        long t = tail.get();
+        if (t - headCache >= buffer.length) {
+            headCache = head.get();
+            if (t - headCache >= buffer.length) {
+                return false;
+            }
+        }
+        buffer[(int) t & mask] = e;
+        tail.lazySet(t + 1); // publishes the slot written above
+        return true;
+    }
+
+    /**
+     * Effect: remove and return the element at the head of the queue, or return null if the
+     * queue is empty. Requires: this is called by the consumer thread.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head.get();
+        if (h >= tailCache) {
+            tailCache = tail.get();
+            if (h >= tailCache) {
+                return null;
+            }
+        }
+        int slot = (int) h & mask;
+        E e = (E) buffer[slot];
+        buffer[slot] = null;
+        head.lazySet(h + 1); // frees the slot for the producer
+        return e;
+    }
+
+    /**
+     * Returns: the number of elements in the queue. Exact only when neither thread is changing
+     * the queue.
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    /** Returns: true iff the queue is empty, with the same caveat as size(). */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -2,6 +2,7 @@ package diver;
 
 import datastructures.SlowPQueue;
 import game.*;
+import graph.Path;
 import graph.ShortestPaths;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -20,6 +21,34 @@ import java.util.TreeMap;
  */
 public class McDiver implements SewerDiver {
 
+    /**
+     * The scram sewer as a graph, and the shortest-path finders reused by every query on it:
+     * paths for the paths McDiver follows, and lengths for lengthToExit(), which searches the
+     * sewer with its tunnels contracted and last searched from lengthsFrom (null if it has not
+     * searched yet). Set up by prepare().
+     */
+    private Maze scramMaze;
+    private Node scramExit;
+    private ShortestPaths<Node, Edge> paths;
+    private ContractedMaze.Search lengths;
+    private Node lengthsFrom;
+
+    /**
+     * Effect: set up scramMaze and the shortest-path finders for state's sewer, unless they
+     * are already for it.
+     */
+    @SuppressWarnings("unchecked")
+    private void prepare(ScramState state) {
+        if (scramMaze != null && scramExit == state.exit()) {
+            return;
+        }
+        scramMaze = new Maze((Set<Node>) state.allNodes());
+        scramExit = state.exit();
+        paths = new ShortestPaths<>(scramMaze);
+        lengths = new ContractedMaze((Set<Node>) state.allNodes(), n -> n == scramExit).search();
+        lengthsFrom = null;
+    }
+
     /** See {@code SewerDriver} for specification. */
     @Override
     public void seek(SeekState state) {
@@ -159,10 +188,10 @@ public class McDiver implements SewerDiver {
 
     public void loot(ScramState state) {
         //set up for finding the shortest path to exit
-        Maze map = new Maze((Set<Node>) state.allNodes());
-        ShortestPaths maze = new ShortestPaths(map);
+        prepare(state);
+        ShortestPaths<Node, Edge> maze = paths;
         maze.singleSourceDistances(state.currentNode());
-        List<Edge> path = maze.bestPath(state.exit());
+        Path<Edge> path = maze.path(state.exit());
 
         //get a full map of nodes that have coins and their path
         //not sure what this is for
@@ -174,11 +203,11 @@ public class McDiver implements SewerDiver {
                 coinsNodes.put(pathToCoin,node);
             }
         }
-        while(path.size() > state.stepsToGo()) {
+        while(path.hops() > state.stepsToGo()) {
             //coin looting algo
             //update best path after each move
             maze.singleSourceDistances(state.currentNode());
-            path = maze.bestPath(state.exit());
+            path = maze.path(state.exit());
         }
         //go back to destination at the end
         for(Edge e : path) {
@@ -190,16 +219,14 @@ public class McDiver implements SewerDiver {
      * Returns the length from state's current node to some `goal` node. Requires state and goal to be non-null
      */
     public int lengthToExit(ScramState state, Node goal) {
-        Maze maze = new Maze((Set<Node>) state.allNodes());
-        ShortestPaths s = new ShortestPaths(maze);
-        s.singleSourceDistances(state.currentNode());
-        List<Edge> bestPaths = s.bestPath(goal);
-        int result = 0;
-        // Iterates through the path from state's current node to the `goal` node using the best path calculated.
-        for (Edge e : bestPaths) {
-            result += e.length();
+        prepare(state);
+        // The sewer never changes, so distances from the same node need not be searched again
+        if (lengthsFrom != state.currentNode()) {
+            lengthsFrom = state.currentNode();
+            lengths.from(lengthsFrom);
         }
-        return result;
+        // The length of the best path from state's current node to the `goal` node.
+        return (int) lengths.distance(goal);
     }
 
     /**
@@ -234,13 +261,13 @@ public class McDiver implements SewerDiver {
      */
     public void bar(ScramState state, TreeMap<Integer, Node> coinNodes) {
         boolean lastIteration = false;
-        Maze maze = new Maze((Set<Node>) state.allNodes());
-        ShortestPaths s = new ShortestPaths(maze);
+        prepare(state);
+        ShortestPaths<Node, Edge> s = paths;
         s.singleSourceDistances(state.currentNode());
         // The list of Edges that gives the best path to move from McDiver's current location to
         // the coin with the current highest value.
         Node coinNode = bestCoinNode(state, coinNodes);
-        List<Edge> coinPath = s.bestPath(coinNode);
+        Path<Edge> coinPath = s.path(coinNode);
         int coinLen = lengthToExit(state, coinNode);
         // Removes the coin from `coinNodes`, since it will be picked up.
         coinNodes.remove(coinNode.getTile().coins());
@@ -271,7 +298,7 @@ public class McDiver implements SewerDiver {
             bar(state, coinNodes);
         }
         s.singleSourceDistances(state.currentNode());
-        List<Edge> bestPaths = s.bestPath(state.exit());
+        Path<Edge> bestPaths = s.path(state.exit());
         // Recalculates the best path from McDiver's current location to the exit
         for (Edge path : bestPaths) {
             state.moveTo(path.destination());
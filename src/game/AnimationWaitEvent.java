@@ -0,0 +1,15 @@
+package game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight-recorder event for a period the game thread spends blocked on a GUI animation. */
+@Name("mcdiver.AnimationWait")
+@Label("GUI Animation Wait")
+@Category({"McDiver", "GUI"})
+@StackTrace(false)
+final class AnimationWaitEvent extends Event {
+}
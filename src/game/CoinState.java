@@ -0,0 +1,112 @@
+package game;
+
+import java.util.BitSet;
+
+/**
+ * Which coins of a sewer system have been taken in one game. The tiles of a Sewers never change
+ * once it is built, so any number of games, on any threads, can share one Sewers as long as each
+ * keeps its own CoinState.
+ * <p>
+ * A CoinState is bound to the thread running a phase while the phase runs. Tile.coins() and
+ * Tile.takeCoins() then read and update the bound state, so the diver sees the coins of its own
+ * game; on any other thread they throw IllegalStateException rather than show coins already
+ * taken. Other threads must ask a CoinState directly: a diver's helper threads through
+ * ScramState.coinsOn(), and the GUI through its own copy, which it updates as it plays back the
+ * moves.
+ * <p>
+ * Not thread-safe.
+ */
+public final class CoinState {
+
+    /** The coin state bound to each thread, if any */
+    private static final ThreadLocal<CoinState> BOUND = new ThreadLocal<>();
+
+    /** The sewer system whose coins this tracks */
+    private final Sewers sewers;
+
+    /** Indexed by row * columnCount + column: whether the coins on that tile have been taken */
+    private final BitSet taken;
+
+    /**
+     * Constructor: the coin state of a new game in sewers, with no coins taken.
+     */
+    public CoinState(Sewers sewers) {
+        this.sewers = sewers;
+        taken = new BitSet(sewers.rowCount() * sewers.columnCount());
+    }
+
+    /** Return a new coin state of the same sewer system with the same coins taken. */
+    public CoinState copy() {
+        CoinState c = new CoinState(sewers);
+        c.taken.or(taken);
+        return c;
+    }
+
+    /** Return the sewer system whose coins this tracks. */
+    public Sewers sewers() {
+        return sewers;
+    }
+
+    /** Return whether t is a tile of this state's sewer system. */
+    boolean covers(Tile t) {
+        int r = t.row(), c = t.column();
+        return 0 <= r && r < sewers.rowCount() && 0 <= c && c < sewers.columnCount()
+                && sewers.tileAt(r, c) == t;
+    }
+
+    /** Return the index of t in taken. */
+    private int index(Tile t) {
+        return t.row() * sewers.columnCount() + t.column();
+    }
+
+    /**
+     * Return the value of the coins still on tile t.
+     * Requires: t is a tile of this state's sewer system.
+     */
+    public int coins(Tile t) {
+        return taken.get(index(t)) ? 0 : t.originalCoinValue();
+    }
+
+    /**
+     * Take the coins on tile t and return their value (0 if already taken).
+     * Requires: t is a tile of this state's sewer system.
+     */
+    public int take(Tile t) {
+        int i = index(t);
+        if (taken.get(i)) {
+            return 0;
+        }
+        taken.set(i);
+        return t.originalCoinValue();
+    }
+
+    /** Put back every coin, so that the sewer system can be played again. */
+    public void reset() {
+        taken.clear();
+    }
+
+    /**
+     * Bind this state to the calling thread, and return the state bound before, which should
+     * be restored with restore() afterwards. Null if there was none.
+     */
+    CoinState bind() {
+        CoinState previous = BOUND.get();
+        BOUND.set(this);
+        return previous;
+    }
+
+    /** Bind previous, a value returned by bind(), to the calling thread again. */
+    static void restore(CoinState previous) {
+        if (previous == null) {
+            BOUND.remove();
+        } else {
+            BOUND.set(previous);
+        }
+    }
+
+    /** Return the coin state bound to the calling thread that covers t, or null if none. */
+    static CoinState boundFor(Tile t) {
+        CoinState s = BOUND.get();
+        return s != null && s.covers(t) ? s : null;
+    }
+}
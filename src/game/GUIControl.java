@@ -2,13 +2,26 @@ package game;
 
 import cms.util.maybe.Maybe;
 import gui.GUI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 /**
  * Methods for controlling the interaction between the main thread and the GUI, if a GUI is
  * present.
+ * <p>
+ * The game thread does not wait for each move to be animated. It applies the move to the game
+ * at once and queues the GUI update, which the GUI plays back in order. The game thread blocks
+ * only when the GUI has fallen MOVE_QUEUE_CAPACITY updates behind, and when it calls
+ * drainMoves() before reporting the result of a phase.
  */
 public class GUIControl {
 
+    /**
+     * How long the game thread sleeps between attempts to queue an update into a full queue
+     */
+    private static final long BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
     /**
      * No objects.
      */
@@ -16,35 +29,42 @@ public class GUIControl {
     }
 
     /**
-     * Register that an animation is starting on the GUI, if the GUI is present. It is the job of
-     * the GUI to stop the animation.
+     * Queue update to run on the GUI, if the GUI is present, after all updates queued before
+     * it have played. Block while the queue is full. If the waiting thread is interrupted,
+     * return early, dropping update, with its interrupt status set so that the caller can
+     * abandon the phase.
      */
-    public static void startAnimation(Maybe<GUI> guiOpt) {
-        guiOpt.thenDo(gui -> gui.startAnimating());
+    public static void enqueueMove(Maybe<GUI> guiOpt, Consumer<GUI> update) {
+        guiOpt.thenDo(gui -> {
+            if (gui.offerMove(update)) {
+                return;
+            }
+            AnimationWaitEvent event = new AnimationWaitEvent();
+            event.begin();
+            while (!gui.offerMove(update)) {
+                LockSupport.parkNanos(BACKOFF_NANOS);
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+            }
+            event.commit();
+        });
     }
 
     /**
-     * Wait until the GUI animation, if any, is complete.
+     * Wait until every queued update, if any, has been played on the GUI. If the waiting thread
+     * is interrupted, return early with its interrupt status set.
      */
-    public static void waitForAnimation(Maybe<GUI> guiOpt) {
-        // TODO: Avoid inefficient spinning while waiting for GUI
+    public static void drainMoves(Maybe<GUI> guiOpt) {
         guiOpt.thenDo(gui -> {
-            synchronized (gui) {
-                try {
-                    while (gui.isAnimating()) {
-                        gui.wait();
-                    }
-                } catch (InterruptedException e) {
-                    throw new RuntimeException();
-                }
+            AnimationWaitEvent event = new AnimationWaitEvent();
+            event.begin();
+            try {
+                gui.awaitMovesPlayed();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-//            try{
-//                guiOpt.wait();
-//            } catch (InterruptedException e) {
-//                throw new RuntimeException();
-//            }
-
-//           while (gui.isAnimating()) {}
+            event.commit();
         });
     }
 }
@@ -0,0 +1,47 @@
+package game;
+
+/**
+ * An observer of a game as it is played. GameState calls these methods on the thread running the
+ * phase, in the order the events happen, so implementations must be quick or hand the work off.
+ * Every method does nothing by default.
+ */
+public interface GameListener {
+
+    /**
+     * The game generated from seed seed is about to start.
+     */
+    default void gameStarted(long seed) {
+    }
+
+    /**
+     * Phase phase ("seek" or "scram") is starting in sewers with the diver at start. steps is
+     * the number of steps taken (seek) or left (scram).
+     */
+    default void phaseStarted(String phase, Sewers sewers, Node start, int steps) {
+    }
+
+    /**
+     * The diver has moved to node to. steps is the number of steps taken (seek) or left (scram)
+     * after the move, and coins the coins collected so far, including any on to.
+     */
+    default void moved(Node to, int steps, int coins) {
+    }
+
+    /**
+     * The diver has picked up the coins on node at.
+     */
+    default void coinsTaken(Node at) {
+    }
+
+    /**
+     * Phase phase has ended, successfully iff succeeded, with the game's score at score.
+     */
+    default void phaseEnded(String phase, boolean succeeded, int score) {
+    }
+
+    /**
+     * The game is over. Called even if a phase failed.
+     */
+    default void gameEnded(GameResult result) {
+    }
+}
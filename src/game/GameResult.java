@@ -0,0 +1,65 @@
+package game;
+
+import cms.util.maybe.Maybe;
+
+/** The outcome of one game: its score and, if the game was profiled, where its time went. */
+public final class GameResult {
+
+    /** The seed the game was generated from (-1 for sewers loaded from files) */
+    private final long seed;
+
+    /** Final score and coins collected */
+    private final int score, coins;
+
+    private final boolean seekSucceeded, scramSucceeded;
+
+    /** Profiles of the phases that ran, if profiling was on */
+    private final Maybe<PhaseProfile> seekProfile, scramProfile;
+
+    /** Constructor: the result of a game. */
+    GameResult(long seed, int score, int coins, boolean seekSucceeded, boolean scramSucceeded,
+            Maybe<PhaseProfile> seekProfile, Maybe<PhaseProfile> scramProfile) {
+        this.seed = seed;
+        this.score = score;
+        this.coins = coins;
+        this.seekSucceeded = seekSucceeded;
+        this.scramSucceeded = scramSucceeded;
+        this.seekProfile = seekProfile;
+        this.scramProfile = scramProfile;
+    }
+
+    /** Return the seed of the game. */
+    public long seed() {
+        return seed;
+    }
+
+    /** Return the final score. */
+    public int score() {
+        return score;
+    }
+
+    /** Return the number of coins collected. */
+    public int coins() {
+        return coins;
+    }
+
+    /** Return whether the seek phase succeeded. */
+    public boolean seekSucceeded() {
+        return seekSucceeded;
+    }
+
+    /** Return whether the scram phase succeeded. */
+    public boolean scramSucceeded() {
+        return scramSucceeded;
+    }
+
+    /** Return the profile of the seek phase, if profiling was on. */
+    public Maybe<PhaseProfile> seekProfile() {
+        return seekProfile;
+    }
+
+    /** Return the profile of the scram phase, if profiling was on and the phase ran. */
+    public Maybe<PhaseProfile> scramProfile() {
+        return scramProfile;
+    }
+}
@@ -9,12 +9,15 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Random;
-import java.util.concurrent.Callable;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import gui.GUI;
@@ -34,6 +37,42 @@ public class GameState implements SeekState, ScramState {
 
     }
 
+    /**
+     * Thrown from a state call once the running phase has passed its deadline or its thread has
+     * been interrupted. Unwinds the diver's code so that the phase thread can be reused.
+     */
+    static class PhaseTimeoutException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Pool of daemon threads on which time-limited phases run. Threads are reused across phases
+     * and games, and idle ones are retired after a minute.
+     */
+    private static final ExecutorService PHASE_RUNNER = Executors.newCachedThreadPool(
+            new PhaseThreadFactory());
+
+    /** Names and daemonizes the threads of PHASE_RUNNER. */
+    private static class PhaseThreadFactory implements java.util.concurrent.ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "phase-runner-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    /**
+     * How long to wait, after cancelling a phase that timed out, for its thread to unwind before
+     * reporting the result anyway (milliseconds).
+     */
+    private static final long CANCEL_GRACE_MS = 500;
+
+    /** The generation of the time-limited phase the current thread runs, if any */
+    private static final ThreadLocal<Integer> PHASE_GENERATION = new ThreadLocal<>();
+
     static boolean shouldPrint = true;
 
     /**
@@ -63,6 +102,16 @@ public class GameState implements SeekState, ScramState {
      */
     private final Sewers seekSewer, scramSewer;
 
+    /**
+     * The coins taken in this game from each sewer system
+     */
+    private final CoinState seekCoins, scramCoins;
+
+    /**
+     * Distances to the ring and neighbor statuses of the seek sewer, precomputed
+     */
+    private final NeighborTable seekTable;
+
     private final SewerDiver sewerDiver;
 
     private Maybe<GUI> gui;
@@ -87,9 +136,36 @@ public class GameState implements SeekState, ScramState {
      * Time-out time for seek and scram phases
      */
     public static final long SEEK_TIMEOUT = 10, SCRAM_TIMEOUT = 15;
+
+    /** The time limits of this game's seek and scram phases, in nanoseconds */
+    private long seekTimeoutNanos = TimeUnit.SECONDS.toNanos(SEEK_TIMEOUT),
+            scramTimeoutNanos = TimeUnit.SECONDS.toNanos(SCRAM_TIMEOUT);
     private boolean seekTimedOut = false;
     private boolean scramTimedOut = false;
 
+    /**
+     * Whether the current phase runs under a deadline, and the System.nanoTime() value at which
+     * it expires. Written by the controlling thread, read by the phase thread.
+     */
+    private volatile boolean timeLimited = false;
+    private volatile long deadline;
+
+    /** Whether a state call of the current phase has found the deadline passed. */
+    private volatile boolean deadlinePassed = false;
+
+    /**
+     * The generation of the current time-limited phase. runWithDeadline() starts a new one for
+     * each phase and ends it when it returns, so that an abandoned phase thread, which holds an
+     * older generation, can no longer change the game (see ownsPhase()).
+     */
+    private volatile int generation;
+
+    /**
+     * Held while a phase records its outcome and while runWithDeadline() ends a generation, so
+     * that a phase cannot be abandoned partway through recording it
+     */
+    private final Object phaseLock = new Object();
+
     private int minSeekDistance;
     private int minScramDistance;
 
@@ -98,6 +174,19 @@ public class GameState implements SeekState, ScramState {
 
     private int minSeekSteps;
 
+    /**
+     * Whether phases are profiled, the profile of the phase now running (null if not profiling),
+     * and the profiles of the two phases
+     */
+    private final boolean profiling;
+    private PhaseProfile profile;
+    private Maybe<PhaseProfile> seekProfile = Maybe.none(), scramProfile = Maybe.none();
+
+    /**
+     * Observers of the game, notified in order
+     */
+    private final List<GameListener> listeners = new ArrayList<>();
+
     /**
      * = "scram succeeded"
      */
@@ -114,6 +203,9 @@ public class GameState implements SeekState, ScramState {
         seekSewer = Sewers.deserialize(Files.readAllLines(seekSewerPath));
         minSeekSteps = seekSewer.minPathLengthToRing(seekSewer.entrance());
         scramSewer = Sewers.deserialize(Files.readAllLines(scramSewerPath));
+        seekCoins = new CoinState(seekSewer);
+        seekTable = seekSewer.neighborTable();
+        scramCoins = new CoinState(scramSewer);
 
         sewerDiver = sd;
 
@@ -123,6 +215,7 @@ public class GameState implements SeekState, ScramState {
         coinsCollected = 0;
 
         seed = -1;
+        profiling = false;
 
         phase = Phase.SEEK;
         gui = Maybe.some(new GUI(seekSewer, position.getTile().row(),
@@ -134,13 +227,23 @@ public class GameState implements SeekState, ScramState {
      * {@code SewerDiver} {@code sd} used to solve the game.
      */
     GameState(long seed, boolean useGui, SewerDiver sd) {
-        Random rand = new Random(seed);
-        int ROWS = rand.nextInt(MAX_ROWS - MIN_ROWS + 1) + MIN_ROWS;
-        int COLS = rand.nextInt(MAX_COLS - MIN_COLS + 1) + MIN_COLS;
-        seekSewer = Sewers.digExploreSewer(ROWS, COLS, rand);
-        minSeekSteps = seekSewer.minPathLengthToRing(seekSewer.entrance());
-        Tile ringTile = seekSewer.ring().getTile();
-        scramSewer = Sewers.digGetOutSewer(ROWS, COLS, ringTile.row(), ringTile.column(), rand);
+        this(seed, useGui, sd, false);
+    }
+
+    /**
+     * Creates: a new game instance using seed {@code seed} with or without a GUI, with
+     * {@code SewerDiver} {@code sd} used to solve the game, and recording a PhaseProfile of
+     * each phase iff {@code profile}.
+     */
+    GameState(long seed, boolean useGui, SewerDiver sd, boolean profile) {
+        // Cached sewers are shared with other games; this game's coins are in its CoinStates
+        SewerCache.Entry sewers = SewerCache.shared().get(seed);
+        seekSewer = sewers.seek();
+        minSeekSteps = sewers.minSeekSteps();
+        scramSewer = sewers.scram();
+        seekCoins = new CoinState(seekSewer);
+        seekTable = seekSewer.neighborTable();
+        scramCoins = new CoinState(scramSewer);
 
         position = seekSewer.entrance();
         stepsTaken = 0;
@@ -151,6 +254,7 @@ public class GameState implements SeekState, ScramState {
         phase = Phase.SEEK;
 
         this.seed = seed;
+        profiling = profile;
 
         gui = Maybe.none();
         if (useGui) {
@@ -224,27 +328,216 @@ public class GameState implements SeekState, ScramState {
         }
     }
 
-    @SuppressWarnings("deprecation")
     /** Wrap a call to seek() with the timeout functionality. */
     private void seekWithTimeLimit() {
-        FutureTask<Void> ft = new FutureTask<>(new Callable<Void>() {
-            @Override
-            public Void call() {
-                seek();
-                return null;
+        seekTimedOut = runWithDeadline(this::seek, seekTimeoutNanos);
+    }
+
+    /**
+     * Set the time limits of the seek and scram phases to seek and scram, in unit, in place of
+     * SEEK_TIMEOUT and SCRAM_TIMEOUT seconds.
+     */
+    void setTimeouts(long seek, long scram, TimeUnit unit) {
+        seekTimeoutNanos = unit.toNanos(seek);
+        scramTimeoutNanos = unit.toNanos(scram);
+    }
+
+    /**
+     * Run phase on a pooled thread and wait at most timeoutNanos nanoseconds for it to finish.
+     * If it does not, cancel it: every later state call made by the diver throws, and the
+     * thread is interrupted in case it is blocked. Return true iff the phase timed out.
+     * <p>
+     * A diver that neither calls into the state nor checks for interruption cannot be stopped.
+     * Its thread is abandoned after CANCEL_GRACE_MS and runs on, out of the pool, until the
+     * diver returns: such a thread leaks. It can no longer change the game, though: once this
+     * method returns, the phase's generation is over, and the thread's state calls throw and
+     * its outcome is not recorded.
+     */
+    private boolean runWithDeadline(Runnable phase, long timeoutNanos) {
+        CountDownLatch finished = new CountDownLatch(1);
+        deadline = System.nanoTime() + timeoutNanos;
+        deadlinePassed = false;
+        int gen = ++generation;
+        timeLimited = true;
+        Future<?> f = PHASE_RUNNER.submit(() -> {
+            PHASE_GENERATION.set(gen);
+            try {
+                phase.run();
+            } finally {
+                PHASE_GENERATION.remove();
+                finished.countDown();
             }
         });
-
-        Thread t = new Thread(ft);
-        t.start();
         try {
-            ft.get(SEEK_TIMEOUT, TimeUnit.SECONDS);
+            f.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            // The phase may have unwound on its own deadline check just before get() timed out.
+            return deadlinePassed;
         } catch (TimeoutException e) {
-            t.stop();
-            seekTimedOut = true;
-        } catch (InterruptedException | ExecutionException e) {
-            System.err.println("ERROR");
-            // Shouldn't happen
+            f.cancel(true);
+            try {
+                finished.await(CANCEL_GRACE_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (ExecutionException e) {
+            System.err.println("ERROR"); // Shouldn't happen
+            return false;
+        } finally {
+            synchronized (phaseLock) {
+                generation++;
+                timeLimited = false;
+            }
+        }
+    }
+
+    /**
+     * Throw PhaseTimeoutException if the calling thread does not own the current phase (see
+     * ownsPhase()), if the phase has run past its deadline, or if the thread running it has been
+     * interrupted.
+     */
+    private void checkDeadline() {
+        if (!ownsPhase()) {
+            throw new PhaseTimeoutException();
+        }
+        if (Thread.currentThread().isInterrupted()
+                || timeLimited && System.nanoTime() - deadline >= 0) {
+            ifOwnsPhase(() -> deadlinePassed = true);
+            throw new PhaseTimeoutException();
+        }
+    }
+
+    /**
+     * Return whether the calling thread owns the current phase and so may change the game: it
+     * runs the current time-limited phase, or it runs no time-limited phase and none is
+     * running. The thread of an abandoned phase never does.
+     */
+    private boolean ownsPhase() {
+        Integer gen = PHASE_GENERATION.get();
+        return gen == null ? !timeLimited : gen == generation;
+    }
+
+    /**
+     * Run update, which records part of the outcome of the phase, iff the calling thread owns
+     * the phase, holding phaseLock so that the phase cannot be abandoned meanwhile.
+     */
+    private void ifOwnsPhase(Runnable update) {
+        synchronized (phaseLock) {
+            if (ownsPhase()) {
+                update.run();
+            }
+        }
+    }
+
+    /**
+     * If profiling, start a new profile named name for the phase about to run on this thread and
+     * return it. Otherwise, return none.
+     */
+    private Maybe<PhaseProfile> startProfile(String name) {
+        if (!profiling) {
+            return Maybe.none();
+        }
+        profile = new PhaseProfile(name);
+        profile.begin();
+        return Maybe.some(profile);
+    }
+
+    /** Finish the profile of the phase that has just run, if any. */
+    private void endProfile() {
+        if (profile != null) {
+            profile.end();
+            profile = null;
+        }
+    }
+
+    /**
+     * Commit event, which timed the phase called name, if the flight recorder wants it. steps is
+     * the phase's step count and succeeded whether it succeeded.
+     */
+    private void recordPhase(PhaseEvent event, String name, int steps, boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = name;
+            event.seed = seed;
+            event.steps = steps;
+            event.coins = coinsCollected;
+            event.score = getScore();
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+
+    /** Return the current time for the profile, or 0 if there is no profile. */
+    private long profileClock() {
+        return profile == null ? 0 : System.nanoTime();
+    }
+
+    /** Charge the time since start, a reading of profileClock(), to state calls. */
+    private void chargeStateCall(long start) {
+        if (profile != null) {
+            profile.stateCallNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Run the diver's callback and then wait for the GUI to play back every move it made,
+     * charging both to the profile. The wait is a state call and a GUI wait, so it falls within
+     * the callback's time too, and the diver is not charged for it.
+     */
+    private void runDiver(Runnable callback) {
+        long start = profileClock();
+        try {
+            callback.run();
+        } finally {
+            if (ownsPhase()) {
+                drainMoves();
+                if (profile != null) {
+                    profile.callbackNanos += System.nanoTime() - start;
+                }
+            }
+        }
+        if (!ownsPhase()) {
+            // The phase was abandoned while the diver ran; its return is not an outcome
+            throw new PhaseTimeoutException();
+        }
+    }
+
+    /**
+     * Queue update for the GUI to play back after the updates queued before it, charging any
+     * wait for room in the queue to the profile.
+     */
+    private void enqueueMove(Consumer<GUI> update) {
+        long start = profileClock();
+        GUIControl.enqueueMove(gui, update);
+        if (profile != null) {
+            profile.guiWaitNanos += System.nanoTime() - start;
+        }
+    }
+
+    /** Wait for the GUI to play back every queued update, charging the wait to the profile. */
+    private void drainMoves() {
+        long start = profileClock();
+        GUIControl.drainMoves(gui);
+        if (profile != null) {
+            long waited = System.nanoTime() - start;
+            profile.guiWaitNanos += waited;
+            profile.stateCallNanos += waited;
+        }
+    }
+
+    /** Add l to the observers of this game. */
+    void addListener(GameListener l) {
+        listeners.add(l);
+    }
+
+    /** Tell every listener that the diver has just moved to n, with steps steps. */
+    private void fireMoved(Node n, int steps) {
+        for (GameListener l : listeners) {
+            l.moved(n, steps, coinsCollected);
         }
     }
 
@@ -260,89 +553,123 @@ public class GameState implements SeekState, ScramState {
      * Run the sewerDiver's seek() function.
      */
     void seek() {
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        seekProfile = startProfile("seek");
+        CoinState previous = seekCoins.bind();
+        try {
+            seekPhase();
+        } finally {
+            CoinState.restore(previous);
+            ifOwnsPhase(() -> {
+                endProfile();
+                recordPhase(event, "seek", stepsTaken, seekSucceeded);
+                for (GameListener l : listeners) {
+                    l.phaseEnded("seek", seekSucceeded, getScore());
+                }
+            });
+        }
+    }
+
+    /** Run the seek phase proper. */
+    private void seekPhase() {
         phase = Phase.SEEK;
         stepsTaken = 0;
         seekSucceeded = false;
         position = seekSewer.entrance();
         minSeekDistance = seekSewer.minPathLengthToRing(position);
-        GUIControl.startAnimation(gui);
-        onGUI(g -> {
+        Node start = position;
+        CoinState shownCoins = seekCoins.copy();
+        GUIControl.enqueueMove(gui, g -> {
             g.setLighting(false);
-            g.updateSewer(seekSewer, 0);
-            g.moveTo(position);
+            g.updateSewer(seekSewer, shownCoins, 0);
+            g.moveTo(start);
         });
-        GUIControl.waitForAnimation(gui);
+        for (GameListener l : listeners) {
+            l.phaseStarted("seek", seekSewer, start, 0);
+        }
 
         try {
-            sewerDiver.seek(this);
+            runDiver(() -> sewerDiver.seek(this));
             // Verify that we returned at the correct location
-            if (position.equals(seekSewer.ring())) {
-                seekSucceeded = true;
-            } else {
-                errPrintln("seek(...) returned at the wrong location.");
-                onGUI(g -> g.displayError(
-                        "seek(f..) returned at the wrong location."));
-            }
+            ifOwnsPhase(() -> {
+                if (position.equals(seekSewer.ring())) {
+                    seekSucceeded = true;
+                } else {
+                    errPrintln("seek(...) returned at the wrong location.");
+                    onGUI(g -> g.displayError(
+                            "seek(f..) returned at the wrong location."));
+                }
+            });
         } catch (Throwable t) {
-            if (t instanceof ThreadDeath) {
+            if (t instanceof PhaseTimeoutException) {
                 return;
             }
-            errPrintln("seek(...) threw an exception.");
-            errPrintln("Here is the output.");
-            t.printStackTrace();
-            onGUI(g -> g.displayError(
-                    "seek(...) threw an exception. See the console output."));
-            seekErred = true;
+            ifOwnsPhase(() -> {
+                errPrintln("seek(...) threw an exception.");
+                errPrintln("Here is the output.");
+                t.printStackTrace();
+                onGUI(g -> g.displayError(
+                        "seek(...) threw an exception. See the console output."));
+                seekErred = true;
+            });
         }
     }
 
-    @SuppressWarnings("deprecation")
     /** Wrap a call to scram() with the timeout functionality. */
     private void scramWithTimeLimit() {
-        FutureTask<Void> ft = new FutureTask<>(new Callable<Void>() {
-            @Override
-            public Void call() {
-                scram();
-                return null;
-            }
-        });
-
-        Thread t = new Thread(ft);
-        t.start();
-        try {
-            ft.get(SCRAM_TIMEOUT, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-            t.stop();
-            scramTimedOut = true;
-        } catch (InterruptedException | ExecutionException e) {
-            System.err.println("ERROR"); // Shouldn't happen
-        }
+        scramTimedOut = runWithDeadline(this::scram, scramTimeoutNanos);
     }
 
     /**
      * Handle the logic for running the sewerDiver's scram() procedure with no timeout.
      */
     void scram() {
+        PhaseEvent event = new PhaseEvent();
+        event.begin();
+        scramProfile = startProfile("scram");
+        CoinState previous = scramCoins.bind();
+        try {
+            scramPhase();
+        } finally {
+            CoinState.restore(previous);
+            ifOwnsPhase(() -> {
+                endProfile();
+                recordPhase(event, "scram", stepsToGo, scramSucceeded);
+                for (GameListener l : listeners) {
+                    l.phaseEnded("scram", scramSucceeded, getScore());
+                }
+            });
+        }
+    }
+
+    /** Run the scram phase proper. */
+    private void scramPhase() {
         phase = Phase.SCRAM;
         Tile ringTile = seekSewer.ring().getTile();
         position = scramSewer.nodeAt(ringTile.row(), ringTile.column());
         minScramDistance = scramSewer.minPathLengthToRing(position);
         stepsToGo = computeStepsToScram();
-        onGUI(g -> {
+        int initialSteps = stepsToGo;
+        CoinState shownCoins = scramCoins.copy();
+        GUIControl.enqueueMove(gui, g -> {
             g.getOptionsPanel().changePhaseLabel("Scram phase");
             g.setLighting(true);
-            g.updateSewer(scramSewer, stepsToGo);
+            g.updateSewer(scramSewer, shownCoins, initialSteps);
         });
+        for (GameListener l : listeners) {
+            l.phaseStarted("scram", scramSewer, position, initialSteps);
+        }
 
         // Pick up coins on start phase (if any)
         Node cn = currentNode();
-        int coins = cn.getTile().coins();
+        int coins = scramCoins.coins(cn.getTile());
         if (coins > 0) {
             grabCoins();
         }
 
         try {
-            sewerDiver.scram(this);
+            runDiver(() -> sewerDiver.scram(this));
             // Verify that the diver returned at the correct location
             if (!position.equals(scramSewer.ring())) {
                 errPrintln("scram(..) returned at the wrong location.");
@@ -350,7 +677,7 @@ public class GameState implements SeekState, ScramState {
                 return;
             }
 
-            scramSucceeded = true;
+            ifOwnsPhase(() -> scramSucceeded = true);
             onGUI(g -> g.getOptionsPanel().changePhaseLabel("Scram done!"));
             System.out.println("Scram Succeeded!");
             // Since the exit has been reached, turn off painting the
@@ -361,14 +688,16 @@ public class GameState implements SeekState, ScramState {
             onGUI(g -> g.displayError(
                     "scram(...) ran out of steps before returning!"));
         } catch (Throwable t) {
-            if (t instanceof ThreadDeath) {
+            if (t instanceof PhaseTimeoutException) {
                 return;
             }
-            errPrintln("scram(...) threw an exception:");
-            t.printStackTrace();
-            onGUI(g -> g.displayError(
-                    "scram(...) threw an exception. See the console output."));
-            scramErred = true;
+            ifOwnsPhase(() -> {
+                errPrintln("scram(...) threw an exception:");
+                t.printStackTrace();
+                onGUI(g -> g.displayError(
+                        "scram(...) threw an exception. See the console output."));
+                scramErred = true;
+            });
         }
 
         outPrintln("Coins collected   : " + getCoinsCollected());
@@ -412,22 +741,31 @@ public class GameState implements SeekState, ScramState {
             throw new IllegalStateException(
                     "moveTo(ID) can only be called while fleeing!");
         }
-
-        for (Node n : position.getNeighbors()) {
-            if (n.getId() == id) {
-                position = n;
-                stepsTaken++;
-                GUIControl.startAnimation(gui);
-                onGUI(g -> {
-                    g.updateBonus(computeBonusFactor());
-                    g.moveTo(n);
-                });
-                GUIControl.waitForAnimation(gui);
-                return;
+        checkDeadline();
+        long start = profileClock();
+        try {
+            for (Node n : position.getNeighbors()) {
+                if (n.getId() == id) {
+                    position = n;
+                    stepsTaken++;
+                    if (profile != null) {
+                        profile.moves++;
+                    }
+                    double bonus = computeBonusFactor();
+                    enqueueMove(g -> {
+                        g.updateBonus(bonus);
+                        g.moveTo(n);
+                    });
+                    fireMoved(n, stepsTaken);
+                    checkDeadline();
+                    return;
+                }
             }
+            throw new IllegalArgumentException(
+                    "moveTo: Node must be adjacent to position");
+        } finally {
+            chargeStateCall(start);
         }
-        throw new IllegalArgumentException(
-                "moveTo: Node must be adjacent to position");
     }
 
     /**
@@ -439,13 +777,15 @@ public class GameState implements SeekState, ScramState {
             throw new IllegalStateException(
                     "getLocation() can be called only while fleeing!");
         }
+        checkDeadline();
 
         return position.getId();
     }
 
     /**
      * Return a collection of NodeStatus objects that contain the unique ID of the node and the
-     * distance from that node to the ring.
+     * distance from that node to the ring. The collection is unmodifiable and is shared by every
+     * call made at the same location.
      */
     @Override
     public Collection<NodeStatus> neighbors() {
@@ -453,22 +793,15 @@ public class GameState implements SeekState, ScramState {
             throw new IllegalStateException(
                     "getNeighbors() can be called only while fleeing!");
         }
-
-        Collection<NodeStatus> options = new ArrayList<>();
-        for (Node n : position.getNeighbors()) {
-            int distance = computeDistanceToRing(n.getTile().row(),
-                    n.getTile().column());
-            options.add(new NodeStatus(n.getId(), distance));
+        checkDeadline();
+        long start = profileClock();
+        if (profile != null) {
+            profile.neighborsCalls++;
         }
-        return options;
-    }
 
-    /**
-     * Return the Manhattan distance from (row, col) to the ring
-     */
-    private int computeDistanceToRing(int row, int col) {
-        return Math.abs(row - seekSewer.ring().getTile().row()) +
-                Math.abs(col - seekSewer.ring().getTile().column());
+        Collection<NodeStatus> options = seekTable.neighbors(position);
+        chargeStateCall(start);
+        return options;
     }
 
     /**
@@ -480,9 +813,9 @@ public class GameState implements SeekState, ScramState {
             throw new IllegalStateException(
                     "distanceToRing() can be called only while fleeing!");
         }
+        checkDeadline();
 
-        return computeDistanceToRing(position.getTile().row(),
-                position.getTile().column());
+        return seekTable.distanceToRing(position);
     }
 
     @Override
@@ -491,6 +824,7 @@ public class GameState implements SeekState, ScramState {
             throw new IllegalStateException("getCurrentNode: Error, " +
                     "current Node may not be accessed unless fleeing");
         }
+        checkDeadline();
         return position;
     }
 
@@ -500,6 +834,7 @@ public class GameState implements SeekState, ScramState {
             throw new IllegalStateException("getEntrance: Error, " +
                     "current Node may not be accessed unless fleeing");
         }
+        checkDeadline();
         return scramSewer.ring();
     }
 
@@ -509,7 +844,27 @@ public class GameState implements SeekState, ScramState {
             throw new IllegalStateException("getVertices: Error, " +
                     "Vertices may not be accessed unless fleeing");
         }
-        return Collections.unmodifiableSet(scramSewer.graph());
+        checkDeadline();
+        long start = profileClock();
+        Collection<Node> nodes = Collections.unmodifiableSet(scramSewer.graph());
+        chargeStateCall(start);
+        return nodes;
+    }
+
+    /**
+     * Return the value of the coins still on n in this game. Makes no deadline check, so that
+     * helper threads of the diver may call it too (see ScramState.coinsOn()).
+     */
+    @Override
+    public int coinsOn(Node n) {
+        if (phase != Phase.SCRAM) {
+            throw new IllegalStateException("coinsOn() can be called only while fleeing!");
+        }
+        if (!scramCoins.covers(n.getTile())) {
+            throw new IllegalArgumentException("coinsOn: " + n.getTile()
+                    + " is not a tile of the scram sewer");
+        }
+        return scramCoins.coins(n.getTile());
     }
 
     /**
@@ -522,24 +877,37 @@ public class GameState implements SeekState, ScramState {
         if (phase != Phase.SCRAM) {
             throw new IllegalStateException("Call moveTo(Node) only when fleeing!");
         }
-        int distance = position.getEdge(n).length;
-        if (stepsToGo - distance < 0) {
-            throw new OutOfTimeException();
-        }
+        checkDeadline();
+        long start = profileClock();
+        try {
+            int distance = position.getEdge(n).length;
+            if (stepsToGo - distance < 0) {
+                throw new OutOfTimeException();
+            }
 
-        if (!position.getNeighbors().contains(n)) {
-            throw new IllegalArgumentException(
-                    "moveTo: Node must be adjacent to position");
+            if (!position.getNeighbors().contains(n)) {
+                throw new IllegalArgumentException(
+                        "moveTo: Node must be adjacent to position");
+            }
+            position = n;
+            stepsToGo -= distance;
+            if (profile != null) {
+                profile.moves++;
+            }
+            int stepsLeft = stepsToGo;
+            enqueueMove(g -> {
+                g.updateStepsToGo(stepsLeft);
+                g.moveTo(n);
+            });
+            try {
+                checkDeadline();
+                grabCoins();
+            } finally {
+                fireMoved(n, stepsLeft);
+            }
+        } finally {
+            chargeStateCall(start);
         }
-        position = n;
-        stepsToGo -= distance;
-        GUIControl.startAnimation(gui);
-        onGUI(g-> {
-            g.updateStepsToGo(stepsToGo);
-            g.moveTo(n);
-        });
-        GUIControl.waitForAnimation(gui);
-        grabCoins();
     }
 
     /**
@@ -550,8 +918,19 @@ public class GameState implements SeekState, ScramState {
         if (phase != Phase.SCRAM) {
             throw new IllegalStateException("Call grabCoins() only when fleeing!");
         }
-        coinsCollected += position.getTile().takeCoins();
-        onGUI(g -> g.updateCoins(coinsCollected, getScore()));
+        Node here = position;
+        int taken = scramCoins.take(here.getTile());
+        coinsCollected += taken;
+        if (taken > 0) {
+            for (GameListener l : listeners) {
+                l.coinsTaken(here);
+            }
+        }
+        int coins = coinsCollected, score = getScore();
+        enqueueMove(g -> {
+            g.updateCoins(coins, score);
+            g.takeCoins(here);
+        });
     }
 
     @Override
@@ -561,6 +940,7 @@ public class GameState implements SeekState, ScramState {
             throw new IllegalStateException(
                     "stepsToGo() can be called only while fleeing!");
         }
+        checkDeadline();
         return stepsToGo;
     }
 
@@ -595,16 +975,50 @@ public class GameState implements SeekState, ScramState {
         return seekTimedOut;
     }
     boolean getScramTimeout() { return scramTimedOut; }
+    /**
+     * Return the result of the game so far.
+     */
+    GameResult result() {
+        return new GameResult(seed, getScore(), coinsCollected, seekSucceeded, scramSucceeded,
+                seekProfile, scramProfile);
+    }
+
     /**
      * Given seed, whether to use the GUI, and an instance of a solution, run the
      * game using that solution.
      */
-    public static int runNewGame(long seed, boolean useGui, SewerDiver solution) {
+    public static GameResult runNewGame(long seed, boolean useGui, SewerDiver solution) {
+        return runNewGame(seed, useGui, solution, false);
+    }
+
+    /**
+     * Given seed, whether to use the GUI, an instance of a solution, and whether to profile
+     * the phases, run the game using that solution.
+     */
+    public static GameResult runNewGame(long seed, boolean useGui, SewerDiver solution,
+            boolean profile) {
+        return runNewGame(seed, useGui, solution, profile, List.of());
+    }
+
+    /**
+     * Given seed, whether to use the GUI, an instance of a solution, whether to profile the
+     * phases, and listeners to observe the game, run the game using that solution.
+     */
+    public static GameResult runNewGame(long seed, boolean useGui, SewerDiver solution,
+            boolean profile, List<? extends GameListener> listeners) {
         GameState state;
-        state = new GameState(seed, useGui, solution);
+        state = new GameState(seed, useGui, solution, profile);
+        listeners.forEach(state::addListener);
         outPrintln("Seed : " + state.seed);
+        for (GameListener l : state.listeners) {
+            l.gameStarted(seed);
+        }
         state.run();
-        return state.getScore();
+        GameResult result = state.result();
+        for (GameListener l : state.listeners) {
+            l.gameEnded(result);
+        }
+        return result;
     }
 
     static void outPrintln(String s) {
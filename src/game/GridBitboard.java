@@ -0,0 +1,143 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * The open tiles of a sewer system with unit edges between adjacent open tiles (see
+ * Sewers.hasUnitGrid()), as one bitmask per row: bit c % 64 of word c / 64 of a row is set iff
+ * column c is open. Breadth-first search then advances a whole wave at a time with shifts and
+ * ANDs against the masks, 64 tiles per word, touching only the words the wave is in.
+ * <p>
+ * Immutable, so any number of threads may search one bitboard at once.
+ */
+public final class GridBitboard {
+
+    private final int rows, cols;
+
+    /** Words per row */
+    private final int words;
+
+    /** The open tiles, row by row: word w of row r is at r * words + w */
+    private final long[] open;
+
+    private GridBitboard(Sewers sewers) {
+        rows = sewers.rowCount();
+        cols = sewers.columnCount();
+        words = (cols + 63) >>> 6;
+        open = new long[rows * words];
+        for (Node n : sewers.graph()) {
+            int r = n.getTile().row(), c = n.getTile().column();
+            open[r * words + (c >>> 6)] |= 1L << c;
+        }
+    }
+
+    /**
+     * Return the bitboard of sewers, or null if it does not have a unit grid.
+     */
+    static GridBitboard of(Sewers sewers) {
+        return sewers.hasUnitGrid() ? new GridBitboard(sewers) : null;
+    }
+
+    /**
+     * Return the distance from source to every tile, by row * columns + column: the number of
+     * edges of a shortest path, or -1 for walls and tiles source does not reach.
+     */
+    public int[] distances(Node source) {
+        int[] field = new int[rows * cols];
+        Arrays.fill(field, -1);
+        search(source, -1, field);
+        return field;
+    }
+
+    /** Return the distance from s to t, or -1 if s does not reach t. */
+    public int distance(Node s, Node t) {
+        return search(s, t.getTile().row() * cols + t.getTile().column(), null);
+    }
+
+    /**
+     * Run a breadth-first search from source, recording the wave each tile is reached in in
+     * field if it is not null, and return the wave the tile with index target is reached in,
+     * stopping there; -1 if it is not reached (always, for target -1).
+     */
+    private int search(Node source, int target, int[] field) {
+        long[] frontier = new long[open.length], next = new long[open.length];
+        long[] seen = new long[open.length];
+        // The words of the frontier, and of the next wave (each listed once: when it was 0)
+        int[] active = new int[open.length], nextActive = new int[open.length];
+        int r0 = source.getTile().row(), c0 = source.getTile().column();
+        // The word and bit of the target, if any
+        int targetWord = target < 0 ? -1 : target / cols * words + (target % cols >>> 6);
+        long targetBit = target < 0 ? 0 : 1L << target % cols;
+        int start = r0 * words + (c0 >>> 6);
+        frontier[start] = seen[start] = 1L << c0;
+        active[0] = start;
+        int count = 1;
+        if (field != null) {
+            field[r0 * cols + c0] = 0;
+        }
+        if (r0 * cols + c0 == target) {
+            return 0;
+        }
+        for (int wave = 1; count > 0; wave++) {
+            int nextCount = 0;
+            for (int k = 0; k < count; k++) {
+                int i = active[k];
+                long f = frontier[i];
+                frontier[i] = 0;
+                int w = i % words;
+                // Columns c - 1 and c + 1 in this word and across its ends, rows r - 1 and r + 1
+                nextCount = spread(next, nextActive, nextCount, i, f << 1 | f >>> 1);
+                if (w > 0) {
+                    nextCount = spread(next, nextActive, nextCount, i - 1, f << 63);
+                }
+                if (w + 1 < words) {
+                    nextCount = spread(next, nextActive, nextCount, i + 1, f >>> 63);
+                }
+                if (i >= words) {
+                    nextCount = spread(next, nextActive, nextCount, i - words, f);
+                }
+                if (i + words < open.length) {
+                    nextCount = spread(next, nextActive, nextCount, i + words, f);
+                }
+            }
+            // Keep the open tiles not seen before; they are the next frontier
+            count = 0;
+            for (int k = 0; k < nextCount; k++) {
+                int i = nextActive[k];
+                long n = next[i] & open[i] & ~seen[i];
+                next[i] = 0;
+                if (n == 0) {
+                    continue;
+                }
+                seen[i] |= n;
+                frontier[i] = n;
+                active[count++] = i;
+                if (i == targetWord && (n & targetBit) != 0) {
+                    return wave;
+                }
+                if (field != null) {
+                    int base = i / words * cols + (i % words << 6);
+                    for (long b = n; b != 0; b &= b - 1) {
+                        field[base + Long.numberOfTrailingZeros(b)] = wave;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Effect: OR bits into word i of next, listing i in nextActive (of which there are
+     * nextCount) if it is not yet listed for this wave, and return the new count.
+     */
+    private static int spread(long[] next, int[] nextActive, int nextCount, int i, long bits) {
+        if (bits == 0) {
+            return nextCount;
+        }
+        if (next[i] == 0) {
+            nextActive[nextCount++] = i;
+        }
+        next[i] |= bits;
+        return nextCount;
+    }
+}
@@ -0,0 +1,440 @@
+package game;
+
+import graph.Heuristic;
+import graph.IndexedDigraph;
+import graph.SearchCounters;
+import graph.SearchStats;
+import graph.SearchWorkspace;
+import graph.ShortestPathTree;
+import graph.ShortestPaths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * A two-level abstraction of a sewer system for pathfinding on very large grids (HPA*). The
+ * grid is cut into square clusters of a fixed size. Where open tiles of two neighboring
+ * clusters are joined across their border there are transitions: of each run of adjacent
+ * crossings, its middle, or both its ends if it is long. The ends of the transitions are the
+ * portals of their clusters, and each cluster keeps the distances between its portals within
+ * the cluster.
+ * <p>
+ * A Query first searches the abstract graph of portals, whose edges are the transitions and
+ * the paths within clusters, and then refines only the hops of the route it chose into Edges.
+ * A route is not always shortest, since runs of crossings are reduced to one or two; compare()
+ * measures how much longer than exact ones the routes are.
+ * <p>
+ * The clusters are built independently, in parallel, and one cluster can be rebuilt with
+ * rebuild() if the edges of its nodes change. Queries must not run during a rebuild;
+ * otherwise any number of threads may query one HierarchicalMaze, each with its own Query.
+ */
+public final class HierarchicalMaze {
+
+    /** Default width and height of a cluster (tiles) */
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    /** Runs of at least this many crossings get a transition at each end instead of one */
+    private static final int LONG_RUN = 6;
+
+    /**
+     * An edge of the abstract graph, from one portal (or query endpoint) to another: either a
+     * transition (crossing is its Edge) or a path within one cluster (crossing is null).
+     */
+    public record Arc(Node from, Node to, double weight, Edge crossing) {
+    }
+
+    /** A cluster: its portals, the arcs leaving each, by slot, and the slot of each portal */
+    private static final class Cluster {
+        final List<Node> portals = new ArrayList<>();
+        final Map<Node, Integer> slots = new HashMap<>();
+        final List<List<Arc>> arcs = new ArrayList<>();
+    }
+
+    private final Sewers sewers;
+    private final int size;
+    private final int clusterRows, clusterCols;
+
+    /** The clusters, by cluster row * clusterCols + cluster column */
+    private final Cluster[] clusters;
+
+    /** The index of each portal in the abstract graph; rebuilt with the clusters */
+    private volatile Map<Node, Integer> portalIndex;
+
+    /**
+     * Constructor: the abstraction of sewers with clusters of size x size tiles, built in
+     * parallel. Requires: size > 0.
+     */
+    public HierarchicalMaze(Sewers sewers, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("cluster size must be positive: " + size);
+        }
+        this.sewers = sewers;
+        this.size = size;
+        clusterRows = (sewers.rowCount() + size - 1) / size;
+        clusterCols = (sewers.columnCount() + size - 1) / size;
+        clusters = new Cluster[clusterRows * clusterCols];
+        IntStream.range(0, clusters.length).parallel()
+                .forEach(k -> clusters[k] = build(k / clusterCols, k % clusterCols));
+        indexPortals();
+    }
+
+    /** Return the abstraction of sewers with clusters of the default size. */
+    public static HierarchicalMaze of(Sewers sewers) {
+        return new HierarchicalMaze(sewers, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Effect: rebuild the cluster holding tile (row, column), and its neighbors, whose
+     * transitions into it may have changed.
+     */
+    public void rebuild(int row, int column) {
+        int cr = row / size, cc = column / size;
+        for (int[] d : new int[][] {{0, 0}, {-1, 0}, {1, 0}, {0, -1}, {0, 1}}) {
+            int r = cr + d[0], c = cc + d[1];
+            if (0 <= r && r < clusterRows && 0 <= c && c < clusterCols) {
+                clusters[r * clusterCols + c] = build(r, c);
+            }
+        }
+        indexPortals();
+    }
+
+    /** Effect: number the portals of all clusters for the abstract graph. */
+    private void indexPortals() {
+        Map<Node, Integer> index = new HashMap<>();
+        for (Cluster c : clusters) {
+            for (Node p : c.portals) {
+                index.put(p, index.size());
+            }
+        }
+        portalIndex = index;
+    }
+
+    /** Return the number of clusters. */
+    public int clusterCount() {
+        return clusters.length;
+    }
+
+    /** Return the number of portals, the vertices of the abstract graph. */
+    public int portalCount() {
+        return portalIndex.size();
+    }
+
+    /** Return the cluster holding node n. */
+    private Cluster clusterOf(Node n) {
+        return clusters[n.getTile().row() / size * clusterCols + n.getTile().column() / size];
+    }
+
+    /** Return whether n is an open tile in cluster (cr, cc). */
+    private boolean inCluster(Node n, int cr, int cc) {
+        return n.getTile().row() / size == cr && n.getTile().column() / size == cc;
+    }
+
+    /** Return cluster (cr, cc), its transitions and the distances between its portals. */
+    private Cluster build(int cr, int cc) {
+        Cluster cluster = new Cluster();
+        List<Edge> exits = new ArrayList<>();
+        for (int[] d : new int[][] {{-1, 0}, {1, 0}, {0, -1}, {0, 1}}) {
+            transitions(cr, cc, d[0], d[1], exits);
+        }
+        for (Edge e : exits) {
+            Node p = e.source();
+            if (!cluster.slots.containsKey(p)) {
+                cluster.slots.put(p, cluster.portals.size());
+                cluster.portals.add(p);
+                cluster.arcs.add(new ArrayList<>());
+            }
+            cluster.arcs.get(cluster.slots.get(p)).add(new Arc(p, e.destination(), e.length, e));
+        }
+        ShortestPaths<Node, Edge> paths = new ShortestPaths<>(new ClusterView(cr, cc),
+                SearchStats.NONE, SearchWorkspace.forCurrentThread());
+        for (int i = 0; i < cluster.portals.size(); i++) {
+            Node p = cluster.portals.get(i);
+            ShortestPathTree<Node, Edge> tree = paths.tree(p);
+            for (Node q : cluster.portals) {
+                if (q != p && tree.reaches(q)) {
+                    cluster.arcs.get(i).add(new Arc(p, q, tree.getDistance(q), null));
+                }
+            }
+        }
+        return cluster;
+    }
+
+    /**
+     * Effect: add to exits the transitions from cluster (cr, cc) to its neighbor in direction
+     * (dr, dc), if there is one.
+     */
+    private void transitions(int cr, int cc, int dr, int dc, List<Edge> exits) {
+        int nr = cr + dr, nc = cc + dc;
+        if (nr < 0 || nr >= clusterRows || nc < 0 || nc >= clusterCols) {
+            return;
+        }
+        // The border tiles of this cluster on that side, and the steps along the border
+        int r0 = dr > 0 ? Math.min((cr + 1) * size, sewers.rowCount()) - 1 : cr * size;
+        int c0 = dc > 0 ? Math.min((cc + 1) * size, sewers.columnCount()) - 1 : cc * size;
+        int n = dr != 0 ? Math.min(size, sewers.columnCount() - cc * size)
+                        : Math.min(size, sewers.rowCount() - cr * size);
+        Edge[] crossing = new Edge[n];
+        for (int i = 0; i < n; i++) {
+            int r = r0 + (dr != 0 ? 0 : i), c = c0 + (dr != 0 ? i : 0);
+            Node a = sewers.nodeAt(r, c), b = sewers.nodeAt(r + dr, c + dc);
+            if (a.getNeighbors().contains(b)) {
+                crossing[i] = a.getEdge(b);
+            }
+        }
+        // Both clusters apply the same rule to the same runs, so their transitions pair up
+        for (int i = 0; i < n; ) {
+            if (crossing[i] == null) {
+                i++;
+                continue;
+            }
+            int j = i;
+            while (j + 1 < n && crossing[j + 1] != null) {
+                j++;
+            }
+            if (j - i + 1 >= LONG_RUN) {
+                exits.add(crossing[i]);
+                exits.add(crossing[j]);
+            } else {
+                exits.add(crossing[(i + j) / 2]);
+            }
+            i = j + 1;
+        }
+    }
+
+    /** The Manhattan distance from n to target, a lower bound as every edge has length >= 1 */
+    private static Heuristic<Node> toward(Node target) {
+        int r = target.getTile().row(), c = target.getTile().column();
+        return n -> Math.abs(n.getTile().row() - r) + Math.abs(n.getTile().column() - c);
+    }
+
+    /** The open tiles of one cluster and the edges between them, indexed within the cluster */
+    private final class ClusterView implements IndexedDigraph<Node, Edge> {
+        private final int cr, cc;
+
+        ClusterView(int cr, int cc) {
+            this.cr = cr;
+            this.cc = cc;
+        }
+
+        public Iterable<Edge> outgoingEdges(Node vertex) {
+            List<Edge> inside = new ArrayList<>(4);
+            for (Edge e : vertex.getExits()) {
+                if (inCluster(e.destination(), cr, cc)) {
+                    inside.add(e);
+                }
+            }
+            return inside;
+        }
+        public Node source(Edge e) { return e.source(); }
+        public Node dest(Edge e) { return e.destination(); }
+        public double weight(Edge e) { return e.length(); }
+        public int vertexCount() { return size * size; }
+        public int index(Node v) {
+            return (v.getTile().row() - cr * size) * size + v.getTile().column() - cc * size;
+        }
+    }
+
+    /** Return a new query over this abstraction. */
+    public Query query() {
+        return new Query();
+    }
+
+    /**
+     * Routes between nodes through the abstraction. Not thread-safe: use one per thread.
+     */
+    public final class Query implements IndexedDigraph<Node, Arc> {
+
+        /** Work done on the abstract graph and on refining routes, over all queries */
+        private final SearchCounters abstractWork = new SearchCounters();
+        private final SearchCounters refineWork = new SearchCounters();
+
+        private final ShortestPaths<Node, Arc> abstractPaths =
+                new ShortestPaths<>(this, abstractWork);
+
+        /** The endpoints of the current query, their arcs, and the portals of the current map */
+        private Node s, t;
+        private final List<Arc> fromS = new ArrayList<>();
+        private final Map<Node, Arc> toT = new HashMap<>();
+        private Map<Node, Integer> index;
+
+        private Query() {
+        }
+
+        /**
+         * Return the edges of a route from s to t, or null if the abstraction finds none.
+         * The route is refined cluster by cluster from the abstract route.
+         */
+        public List<Edge> path(Node s, Node t) {
+            List<Edge> edges = new ArrayList<>();
+            if (s == t) {
+                return edges;
+            }
+            List<Arc> route = route(s, t);
+            if (route == null) {
+                return null;
+            }
+            for (Arc a : route) {
+                if (a.crossing != null) {
+                    edges.add(a.crossing);
+                } else {
+                    Node from = a.from;
+                    ShortestPaths<Node, Edge> inside = new ShortestPaths<>(
+                            new ClusterView(from.getTile().row() / size,
+                                    from.getTile().column() / size),
+                            refineWork, SearchWorkspace.forCurrentThread());
+                    inside.pointToPoint(from, a.to, toward(a.to));
+                    for (Edge e : inside.path(a.to)) {
+                        edges.add(e);
+                    }
+                }
+            }
+            return edges;
+        }
+
+        /** Return the length of the route path(s, t) would refine, or infinity if none. */
+        public double distance(Node s, Node t) {
+            if (s == t) {
+                return 0;
+            }
+            List<Arc> route = route(s, t);
+            if (route == null) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double d = 0;
+            for (Arc a : route) {
+                d += a.weight;
+            }
+            return d;
+        }
+
+        /** Return the abstract route from s to t, or null if there is none. */
+        private List<Arc> route(Node s, Node t) {
+            this.s = s;
+            this.t = t;
+            index = portalIndex;
+            fromS.clear();
+            toT.clear();
+            int sr = s.getTile().row() / size, sc = s.getTile().column() / size;
+            int tr = t.getTile().row() / size, tc = t.getTile().column() / size;
+            ShortestPaths<Node, Edge> inside = new ShortestPaths<>(new ClusterView(sr, sc),
+                    refineWork, SearchWorkspace.forCurrentThread());
+            ShortestPathTree<Node, Edge> tree = inside.tree(s);
+            for (Node p : clusterOf(s).portals) {
+                if (tree.reaches(p)) {
+                    fromS.add(new Arc(s, p, tree.getDistance(p), null));
+                }
+            }
+            if (sr == tr && sc == tc && tree.reaches(t)) {
+                fromS.add(new Arc(s, t, tree.getDistance(t), null));
+            }
+            // The sewers are symmetric, so distances from t are distances to t
+            inside = new ShortestPaths<>(new ClusterView(tr, tc), refineWork,
+                    SearchWorkspace.forCurrentThread());
+            tree = inside.tree(t);
+            for (Node p : clusterOf(t).portals) {
+                if (tree.reaches(p)) {
+                    toT.put(p, new Arc(p, t, tree.getDistance(p), null));
+                }
+            }
+            if (abstractPaths.pointToPoint(s, t, toward(t)) == Double.POSITIVE_INFINITY) {
+                return null;
+            }
+            return abstractPaths.path(t).asList();
+        }
+
+        // The abstract graph of the current query: the portals, then s and t.
+
+        public Iterable<Arc> outgoingEdges(Node v) {
+            List<Arc> out = new ArrayList<>();
+            if (v == s) {
+                out.addAll(fromS);
+            }
+            Cluster c = clusterOf(v);
+            Integer slot = c.slots.get(v);
+            if (slot != null) {
+                for (Arc a : c.arcs.get(slot)) {
+                    if (a.crossing != null || v != s) {
+                        out.add(a);
+                    }
+                }
+            }
+            Arc last = toT.get(v);
+            if (last != null && v != s) {
+                out.add(last);
+            }
+            return out;
+        }
+        public Node source(Arc a) { return a.from; }
+        public Node dest(Arc a) { return a.to; }
+        public double weight(Arc a) { return a.weight; }
+        public int vertexCount() { return index.size() + 2; }
+        public int index(Node v) {
+            return v == s ? index.size() : v == t ? index.size() + 1 : index.get(v);
+        }
+
+        /** Return the work done by this query's abstract searches so far. */
+        public SearchCounters.Counts abstractWork() {
+            return abstractWork.total();
+        }
+
+        /** Return the work done by this query's searches within clusters so far. */
+        public SearchCounters.Counts refineWork() {
+            return refineWork.total();
+        }
+    }
+
+    /**
+     * How routes through the abstraction compare with exact shortest paths, over some queries
+     * between connected nodes: the mean and the largest ratio of route length to shortest
+     * length, and the vertices settled by the hierarchical queries (abstract and within
+     * clusters) and by Dijkstra's algorithm stopping at each target.
+     */
+    public record Quality(int queries, double meanStretch, double maxStretch,
+            long hierarchicalSettled, long exactSettled) {
+        @Override
+        public String toString() {
+            return String.format("%d queries: routes %.3f%% longer on average, %.3f%% at worst;"
+                            + " %d vertices settled, against %d for Dijkstra", queries,
+                    100 * (meanStretch - 1), 100 * (maxStretch - 1), hierarchicalSettled,
+                    exactSettled);
+        }
+    }
+
+    /**
+     * Return how the routes of queries between random pairs of nodes, chosen with a Random
+     * seeded with seed, compare with shortest paths found by Dijkstra's algorithm.
+     */
+    public Quality compare(int queries, long seed) {
+        Random rand = new Random(seed);
+        List<Node> nodes = new ArrayList<>(sewers.graph());
+        Query q = query();
+        SearchCounters exactWork = new SearchCounters();
+        ShortestPaths<Node, Edge> exact = new ShortestPaths<>(new Maze(sewers.graph()),
+                exactWork, SearchWorkspace.forCurrentThread());
+        double sum = 0, max = 1;
+        int n = 0;
+        for (int i = 0; i < queries; i++) {
+            Node s = nodes.get(rand.nextInt(nodes.size())), t = nodes.get(rand.nextInt(nodes.size()));
+            double best = exact.pointToPoint(s, t, Heuristic.none());
+            if (best == 0 || best == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            double stretch = q.distance(s, t) / best;
+            sum += stretch;
+            max = Math.max(max, stretch);
+            n++;
+        }
+        return new Quality(n, n == 0 ? 1 : sum / n, max,
+                q.abstractWork().settled() + q.refineWork().settled(),
+                exactWork.total().settled());
+    }
+
+    @Override
+    public String toString() {
+        return "HierarchicalMaze[" + clusterRows + " x " + clusterCols + " clusters of " + size
+                + " x " + size + ", " + portalCount() + " portals]";
+    }
+}
@@ -1,6 +1,13 @@
 package game;
 
 import diver.McDiver;
+import gui.Assets;
+import gui.GUI;
+import gui.GameRecorder;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Random;
 
@@ -9,6 +16,16 @@ import java.util.Random;
 public class Main {
     static long seed = new Random().nextLong();
     static boolean useGUI = true;
+    static boolean profile = false;
+    /** Where to record games (a directory of PNG frames, or a .gif file), or null */
+    static Path record = null;
+    /** Where to journal the moves of every game, or null */
+    static Path journal = null;
+    /** A journal to replay instead of playing, or null */
+    static Path replay = null;
+    /** Memory limit of the sewer cache (megabytes), and where it spills, or null */
+    static long sewerCacheMegabytes = SewerCache.DEFAULT_MEGABYTES;
+    static Path sewerSpill = null;
     /**
      * The main program. By default, runs seek() and scram() on a random seed, with a
      * graphical user interface.
@@ -43,6 +60,48 @@ public class Main {
                 case "--nographics":
                     useGUI = false;
                     break;
+                case "--profile":
+                    profile = true;
+                    break;
+                case "--instant":
+                    GUI.INSTANT = true;
+                    break;
+                case "--record":
+                    if (argi == args.length) {
+                        System.err.println("Error, --record must be followed by a path");
+                        return;
+                    }
+                    record = Path.of(args[argi++]);
+                    break;
+                case "--journal":
+                    if (argi == args.length) {
+                        System.err.println("Error, --journal must be followed by a path");
+                        return;
+                    }
+                    journal = Path.of(args[argi++]);
+                    break;
+                case "--replay":
+                    if (argi == args.length) {
+                        System.err.println("Error, --replay must be followed by a path");
+                        return;
+                    }
+                    replay = Path.of(args[argi++]);
+                    break;
+                case "--sewer-cache":
+                    try {
+                        sewerCacheMegabytes = Long.parseLong(args[argi++]);
+                    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                        System.err.println("Error, --sewer-cache must be followed by megabytes");
+                        return;
+                    }
+                    break;
+                case "--sewer-spill":
+                    if (argi == args.length) {
+                        System.err.println("Error, --sewer-spill must be followed by a path");
+                        return;
+                    }
+                    sewerSpill = Path.of(args[argi++]);
+                    break;
                 case "--help":
                     usage();
                     return;
@@ -53,20 +112,109 @@ public class Main {
             return;
         }
 
+        if (useGUI) {
+            Assets.preload();
+        } else if (System.getProperty("java.awt.headless") == null) {
+            // Recording draws images without a display
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        SewerCache.configureShared(sewerCacheMegabytes, sewerSpill);
+
+        if (replay != null) {
+            replayJournal();
+            return;
+        }
+
+        MoveJournal moves = null;
+        if (journal != null) {
+            try {
+                moves = new MoveJournal(journal);
+            } catch (IOException e) {
+                System.err.println("Error, cannot write journal " + journal + ": " + e);
+                return;
+            }
+        }
         int totalScore = 0;
         for (int i = 0; i < runs; i++) {
-            totalScore += GameState.runNewGame(seed, useGUI, new McDiver());
+            List<GameListener> listeners = new ArrayList<>();
+            if (moves != null) {
+                listeners.add(moves);
+            }
+            GameResult result;
+            if (record == null) {
+                result = GameState.runNewGame(seed, useGUI, new McDiver(), profile, listeners);
+            } else {
+                Path out = runs == 1 ? record : withSeed(record, seed);
+                try (GameRecorder recorder = GameRecorder.to(out)) {
+                    listeners.add(recorder);
+                    result = GameState.runNewGame(seed, useGUI, new McDiver(), profile,
+                            listeners);
+                    System.out.println("Recorded " + recorder.frames() + " frames to " + out);
+                } catch (IOException e) {
+                    System.err.println("Error, cannot record to " + out + ": " + e);
+                    return;
+                }
+            }
+            totalScore += result.score();
+            result.seekProfile().thenDo(p -> System.out.println("Profile " + p));
+            result.scramProfile().thenDo(p -> System.out.println("Profile " + p));
             seed = new Random(seed).nextLong();
             System.out.println();
         }
+        if (moves != null) {
+            try {
+                moves.close();
+            } catch (IOException e) {
+                System.err.println("Error, cannot write journal " + journal + ": " + e);
+            }
+        }
 
         if (runs > 1) {
             System.out.println("Average score : " + totalScore / runs);
         }
     }
 
+    /**
+     * Replay every game in the journal at replay, and report whether each reproduces its
+     * journaled score. Exit with status 1 if one does not.
+     */
+    private static void replayJournal() {
+        List<MoveJournal.Game> games;
+        try {
+            games = MoveJournal.read(replay);
+        } catch (IOException e) {
+            System.err.println("Error, cannot read journal " + replay + ": " + e);
+            return;
+        }
+        boolean allMatch = true;
+        for (MoveJournal.Game game : games) {
+            Replay.Outcome outcome = Replay.replay(game, useGUI);
+            System.out.println(outcome);
+            System.out.println();
+            allMatch &= outcome.matches();
+        }
+        if (!allMatch) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Return recording path p with seed added to its name, so that each game of a run gets
+     * its own recording.
+     */
+    private static Path withSeed(Path p, long seed) {
+        String name = p.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? p.resolveSibling(name + "-" + seed)
+                : p.resolveSibling(name.substring(0, dot) + "-" + seed + name.substring(dot));
+    }
+
     /** Effect: Prints a usage message. */
     public static void usage() {
-        System.out.println("Usage: Main [--help] [-s <seed>] [-n <runs>] [--nographics]");
+        System.out.println("Usage: Main [--help] [-s <seed>] [-n <runs>] [--nographics]"
+                + " [--profile] [--instant] [--record <dir or .gif>]"
+                + " [--journal <file>] [--replay <file>]"
+                + " [--sewer-cache <megabytes>] [--sewer-spill <dir>]");
     }
 }
@@ -1,14 +1,53 @@
 package game;
 
-import graph.WeightedDigraph;
+import graph.IndexedDigraph;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /** A Maze is a weighted directed graph of game.Node and game.Edge objects */
-public class Maze implements WeightedDigraph<Node, Edge> {
+public class Maze implements IndexedDigraph<Node, Edge> {
     Set<Node> graph;
 
+    /**
+     * One more than the largest vertex index, and the index of each node if node ids are not
+     * small enough to be used as indices (null if they are)
+     */
+    private final int vertexCount;
+    private final Map<Node, Integer> indices;
+
     /** Creates: a maze from a set of Nodes. */
-    public Maze(Set<Node> graph) { this.graph = graph; }
+    public Maze(Set<Node> graph) {
+        this.graph = graph;
+        int idLimit = denseIdLimit(graph);
+        if (idLimit >= 0) {
+            vertexCount = idLimit;
+            indices = null;
+        } else {
+            vertexCount = graph.size();
+            indices = new HashMap<>();
+            for (Node n : graph) {
+                indices.put(n, indices.size());
+            }
+        }
+    }
+
+    /**
+     * Return one more than the largest id of the nodes of graph if every id is nonnegative and
+     * the ids are few enough to index an array by (0 if graph is empty), else -1.
+     */
+    static int denseIdLimit(Collection<Node> graph) {
+        long maxId = -1;
+        for (Node n : graph) {
+            if (n.getId() < 0) {
+                return -1;
+            }
+            maxId = Math.max(maxId, n.getId());
+        }
+        // Nodes of a generated sewer have ids row * columns + column
+        return maxId < 4L * graph.size() + 64 ? (int) maxId + 1 : -1;
+    }
 
     // The following are all standard graph operations specified
     // in WeightedDigraph.
@@ -17,4 +56,11 @@ public class Maze implements WeightedDigraph<Node, Edge> {
     public Node source(Edge edge) { return edge.source(); }
     public Node dest(Edge edge) { return edge.destination(); }
     public double weight(Edge edge) { return edge.length(); }
-}
\ No newline at end of file
+
+    // and in IndexedDigraph.
+
+    public int vertexCount() { return vertexCount; }
+    public int index(Node vertex) {
+        return indices == null ? (int) vertex.getId() : indices.get(vertex);
+    }
+}
@@ -0,0 +1,258 @@
+package game;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only binary record of the games played: for each game its seed, and for each phase
+ * the node moved to, the steps and the coins after every move, then the phase's outcome and the
+ * final result. Replay re-runs a journal to check that it reproduces the same score.
+ * <p>
+ * The journal is written as a GameListener. A move costs a few bytes written to a buffered
+ * stream: node ids, steps and coins are stored as variable-length differences from the previous
+ * move, which are small because moves are between neighbouring tiles.
+ * <p>
+ * File format: the int MAGIC, then records, each a tag byte followed by its fields.
+ * <pre>
+ *   GAME    seed (8-byte long)
+ *   PHASE   phase (byte: 0 seek, 1 scram), steps (varint), start node (varlong)
+ *   MOVE    node - previous node (zigzag varlong), steps - previous steps (zigzag varint),
+ *           coins - previous coins (varint)
+ *   END     phase (byte), succeeded (byte), score (varint)
+ *   RESULT  score (varint), coins (varint)
+ * </pre>
+ */
+public final class MoveJournal implements GameListener, AutoCloseable {
+
+    /** The first four bytes of a journal: "MDJ1" */
+    static final int MAGIC = 0x4D444A31;
+
+    private static final byte GAME = 1, PHASE = 2, MOVE = 3, END = 4, RESULT = 5;
+
+    /** One move of a journaled phase: the node moved to, and the steps and coins after it. */
+    public record Move(long node, int steps, int coins) {
+    }
+
+    /**
+     * One journaled game: its seed, the moves of each phase, whether each phase succeeded,
+     * and the final score and coins.
+     */
+    public record Game(long seed, List<Move> seekMoves, List<Move> scramMoves,
+                       boolean seekSucceeded, boolean scramSucceeded, int score, int coins) {
+    }
+
+    private final DataOutputStream out;
+
+    /** The last move written, from which the next is stored as a difference */
+    private long lastNode;
+    private int lastSteps, lastCoins;
+
+    /**
+     * Constructor: a journal appending games to a new file at path, replacing any file there.
+     */
+    public MoveJournal(Path path) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path),
+                1 << 16));
+        out.writeInt(MAGIC);
+    }
+
+    @Override
+    public void gameStarted(long seed) {
+        try {
+            out.writeByte(GAME);
+            out.writeLong(seed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void phaseStarted(String phase, Sewers sewers, Node start, int steps) {
+        try {
+            out.writeByte(PHASE);
+            out.writeByte(phaseCode(phase));
+            writeVarLong(steps);
+            writeVarLong(start.getId());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastNode = start.getId();
+        lastSteps = steps;
+    }
+
+    @Override
+    public void moved(Node to, int steps, int coins) {
+        try {
+            out.writeByte(MOVE);
+            writeVarLong(zigzag(to.getId() - lastNode));
+            writeVarLong(zigzag(steps - lastSteps));
+            writeVarLong(coins - lastCoins);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastNode = to.getId();
+        lastSteps = steps;
+        lastCoins = coins;
+    }
+
+    @Override
+    public void phaseEnded(String phase, boolean succeeded, int score) {
+        try {
+            out.writeByte(END);
+            out.writeByte(phaseCode(phase));
+            out.writeBoolean(succeeded);
+            writeVarLong(score);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void gameEnded(GameResult result) {
+        try {
+            out.writeByte(RESULT);
+            writeVarLong(result.score());
+            writeVarLong(result.coins());
+            // A crash loses at most the game being played
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastCoins = 0;
+    }
+
+    /** Flush and close the journal. */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /** Return the code stored for phase. */
+    private static int phaseCode(String phase) {
+        return phase.equals("seek") ? 0 : 1;
+    }
+
+    /** Write the non-negative v in 7-bit groups, low group first. */
+    private void writeVarLong(long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    /** Return v with its sign moved to the low bit, so that small negatives are small. */
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    /**
+     * Return the games in the journal at path, in the order they were played. A game cut off
+     * by the end of the file is left out. Throw an IOException if path is not a journal.
+     */
+    public static List<Game> read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a move journal");
+            }
+            List<Game> games = new ArrayList<>();
+            Reader r = new Reader(in);
+            while (true) {
+                Game g;
+                try {
+                    g = r.readGame();
+                } catch (EOFException e) {
+                    return games;
+                }
+                games.add(g);
+            }
+        }
+    }
+
+    /** Decodes the records of a journal, game by game. */
+    private static final class Reader {
+        private final DataInputStream in;
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        /** Read the records of the next game. Throw EOFException if there is no whole game. */
+        Game readGame() throws IOException {
+            expect(GAME);
+            long seed = in.readLong();
+            List<Move> seek = new ArrayList<>(), scram = new ArrayList<>();
+            boolean seekOk = false, scramOk = false;
+            long node = 0;
+            int steps = 0, coins = 0;
+            List<Move> moves = seek;
+            while (true) {
+                int tag = in.readByte();
+                switch (tag) {
+                    case PHASE:
+                        moves = in.readByte() == 0 ? seek : scram;
+                        steps = (int) readVarLong();
+                        node = readVarLong();
+                        break;
+                    case MOVE:
+                        node += unzigzag(readVarLong());
+                        steps += (int) unzigzag(readVarLong());
+                        coins += (int) readVarLong();
+                        moves.add(new Move(node, steps, coins));
+                        break;
+                    case END:
+                        boolean isSeek = in.readByte() == 0;
+                        boolean ok = in.readBoolean();
+                        readVarLong();
+                        if (isSeek) {
+                            seekOk = ok;
+                        } else {
+                            scramOk = ok;
+                        }
+                        break;
+                    case RESULT:
+                        int score = (int) readVarLong();
+                        int total = (int) readVarLong();
+                        return new Game(seed, seek, scram, seekOk, scramOk, score, total);
+                    default:
+                        throw new IOException("bad journal record tag " + tag);
+                }
+            }
+        }
+
+        /** Read a tag and throw an IOException if it is not tag. */
+        private void expect(byte tag) throws IOException {
+            int t = in.readByte();
+            if (t != tag) {
+                throw new IOException("expected journal record tag " + tag + ", found " + t);
+            }
+        }
+
+        /** Read a value written by writeVarLong(). */
+        private long readVarLong() throws IOException {
+            long v = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return v;
+                }
+            }
+        }
+
+        /** Undo zigzag(). */
+        private static long unzigzag(long v) {
+            return (v >>> 1) ^ -(v & 1);
+        }
+    }
+}
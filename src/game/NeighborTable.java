@@ -0,0 +1,67 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * For every tile of a sewer system, its Manhattan distance to the ring and the NodeStatus of
+ * each of its neighbors, in the order of Node.getNeighbors(). Neither changes once the sewer
+ * system is built, so SeekState can hand out the same read-only lists on every call.
+ * <p>
+ * Immutable.
+ */
+final class NeighborTable {
+
+    /** Number of columns of the sewer system; tiles are indexed by row * cols + column */
+    private final int cols;
+
+    /** Manhattan distance from each tile to the ring */
+    private final int[] distance;
+
+    /** Unmodifiable NodeStatus list of each tile's neighbors (empty for walls) */
+    private final List<List<NodeStatus>> neighbors;
+
+    /**
+     * Constructor: the table of sewers, whose ring is the node distances are measured to.
+     */
+    NeighborTable(Sewers sewers) {
+        int rows = sewers.rowCount();
+        cols = sewers.columnCount();
+        Tile ring = sewers.ring().getTile();
+        distance = new int[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                distance[r * cols + c] = Math.abs(r - ring.row()) + Math.abs(c - ring.column());
+            }
+        }
+        NodeStatus[][] statuses = new NodeStatus[rows * cols][];
+        for (Node n : sewers.graph()) {
+            NodeStatus[] s = new NodeStatus[n.getNeighbors().size()];
+            int i = 0;
+            for (Node m : n.getNeighbors()) {
+                s[i++] = new NodeStatus(m.getId(), distance[index(m)]);
+            }
+            statuses[index(n)] = s;
+        }
+        List<List<NodeStatus>> lists = new ArrayList<>(statuses.length);
+        for (NodeStatus[] s : statuses) {
+            lists.add(s == null ? List.of() : List.of(s));
+        }
+        neighbors = List.copyOf(lists);
+    }
+
+    /** Return the index of n's tile. */
+    private int index(Node n) {
+        return n.getTile().row() * cols + n.getTile().column();
+    }
+
+    /** Return the Manhattan distance from n to the ring. */
+    int distanceToRing(Node n) {
+        return distance[index(n)];
+    }
+
+    /** Return the unmodifiable list of the NodeStatus of n's neighbors. */
+    List<NodeStatus> neighbors(Node n) {
+        return neighbors.get(index(n));
+    }
+}
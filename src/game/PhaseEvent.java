@@ -0,0 +1,36 @@
+package game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight-recorder event spanning one seek or scram phase of a game. */
+@Name("mcdiver.Phase")
+@Label("Game Phase")
+@Description("A seek or scram phase, from its start until the diver returns or is stopped")
+@Category({"McDiver", "Game"})
+@StackTrace(false)
+final class PhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Seed")
+    long seed;
+
+    @Label("Steps")
+    @Description("Steps taken while seeking, or steps left after scramming")
+    int steps;
+
+    @Label("Coins")
+    int coins;
+
+    @Label("Score")
+    int score;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
@@ -0,0 +1,151 @@
+package game;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.text.DecimalFormat;
+
+/**
+ * Where the time of one seek or scram phase went: CPU and wall-clock time of the phase thread,
+ * split into time spent in the diver's own code, in the engine's state calls, and blocked waiting
+ * for the GUI to finish animating. Also counts moves, neighbors() calls and, where the JVM supports
+ * it, the bytes allocated by the phase thread.
+ * <p>
+ * An instance is filled in by the thread running the phase and should only be read once the phase
+ * is over.
+ */
+public final class PhaseProfile {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /** The name of the phase ("seek" or "scram") */
+    private final String phase;
+
+    /** Readings taken when the phase started; -1 if unavailable */
+    private long wallStart, cpuStart, allocStart;
+
+    /** Totals for the phase; cpuNanos and allocatedBytes are -1 if unavailable */
+    private long wallNanos, cpuNanos = -1, allocatedBytes = -1;
+
+    /**
+     * Time spent inside the diver's seek() or scram() callback, including engine calls, plus the
+     * final wait for the GUI to catch up; = diver time + stateCallNanos
+     */
+    long callbackNanos;
+
+    /**
+     * Time spent inside moves, neighbors() and allNodes(), plus the final wait for the GUI to
+     * catch up; includes GUI waits
+     */
+    long stateCallNanos;
+
+    /** Time blocked waiting for room in the GUI's move queue or for it to drain */
+    long guiWaitNanos;
+
+    /** Number of moves made and of calls to neighbors() */
+    int moves, neighborsCalls;
+
+    /** Constructor: an empty profile for phase. */
+    PhaseProfile(String phase) {
+        this.phase = phase;
+    }
+
+    /** Effect: take the starting readings. Must be called on the thread running the phase. */
+    void begin() {
+        wallStart = System.nanoTime();
+        cpuStart = cpuTime();
+        allocStart = threadAllocatedBytes();
+    }
+
+    /** Effect: compute the phase totals. Must be called on the thread that called begin(). */
+    void end() {
+        wallNanos = System.nanoTime() - wallStart;
+        long cpu = cpuTime();
+        if (cpu >= 0 && cpuStart >= 0) {
+            cpuNanos = cpu - cpuStart;
+        }
+        long alloc = threadAllocatedBytes();
+        if (alloc >= 0 && allocStart >= 0) {
+            allocatedBytes = alloc - allocStart;
+        }
+    }
+
+    /** Return the CPU time of the current thread, or -1 if it cannot be measured. */
+    private static long cpuTime() {
+        if (!THREADS.isCurrentThreadCpuTimeSupported() || !THREADS.isThreadCpuTimeEnabled()) {
+            return -1;
+        }
+        return THREADS.getCurrentThreadCpuTime();
+    }
+
+    /** Return the bytes allocated so far by the current thread, or -1 if unavailable. */
+    private static long threadAllocatedBytes() {
+        if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        if (!threads.isThreadAllocatedMemorySupported()
+                || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /** Return the name of the phase. */
+    public String phase() {
+        return phase;
+    }
+
+    /** Return the wall-clock time of the whole phase, in nanoseconds. */
+    public long wallNanos() {
+        return wallNanos;
+    }
+
+    /** Return the CPU time of the phase thread, in nanoseconds, or -1 if unavailable. */
+    public long cpuNanos() {
+        return cpuNanos;
+    }
+
+    /** Return the time spent in the diver's own code, in nanoseconds. */
+    public long diverNanos() {
+        return Math.max(0, callbackNanos - stateCallNanos);
+    }
+
+    /** Return the time spent in engine state calls, excluding GUI waits, in nanoseconds. */
+    public long engineNanos() {
+        return Math.max(0, stateCallNanos - guiWaitNanos);
+    }
+
+    /** Return the time spent blocked on GUI animations, in nanoseconds. */
+    public long guiWaitNanos() {
+        return guiWaitNanos;
+    }
+
+    /** Return the number of moves made. */
+    public int moves() {
+        return moves;
+    }
+
+    /** Return the number of calls to neighbors(). */
+    public int neighborsCalls() {
+        return neighborsCalls;
+    }
+
+    /** Return the bytes allocated by the phase thread, or -1 if unavailable. */
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /** Return a one-line summary of this profile, with times in milliseconds. */
+    @Override
+    public String toString() {
+        DecimalFormat ms = new DecimalFormat("#.###");
+        return phase + ": wall " + ms.format(wallNanos / 1e6) + " ms"
+                + ", cpu " + (cpuNanos < 0 ? "n/a" : ms.format(cpuNanos / 1e6) + " ms")
+                + ", diver " + ms.format(diverNanos() / 1e6) + " ms"
+                + ", engine " + ms.format(engineNanos() / 1e6) + " ms"
+                + ", gui wait " + ms.format(guiWaitNanos / 1e6) + " ms"
+                + ", moves " + moves
+                + ", neighbors() " + neighborsCalls
+                + ", allocated " + (allocatedBytes < 0 ? "n/a" : allocatedBytes + " B");
+    }
+}
@@ -0,0 +1,133 @@
+package game;
+
+import diver.SewerDiver;
+import java.util.List;
+
+/**
+ * Replays journaled games: regenerates each game's sewers from its seed and makes the moves in
+ * the journal, without running any diver logic and without time limits, then checks that every
+ * move lands where it did and that the score matches.
+ */
+public final class Replay {
+
+    /**
+     * The outcome of replaying a game: the journaled game, the result of the replay, and a
+     * description of the first difference from the journal, or null if there was none.
+     */
+    public record Outcome(MoveJournal.Game game, GameResult result, String divergence) {
+
+        /** Return whether the replay reproduced the journaled game exactly. */
+        public boolean matches() {
+            return divergence == null;
+        }
+
+        @Override
+        public String toString() {
+            return "Replay of seed " + game.seed() + ": score " + result.score()
+                    + (matches() ? " matches the journal"
+                                 : ", journal says " + game.score() + ". " + divergence);
+        }
+    }
+
+    /** No objects. */
+    private Replay() {
+    }
+
+    /**
+     * Replay game, with a GUI iff useGui, and return how the replay compares with the journal.
+     */
+    public static Outcome replay(MoveJournal.Game game, boolean useGui) {
+        Checker checker = new Checker(game);
+        GameResult result = GameState.runNewGame(game.seed(), useGui, new JournalDiver(game),
+                false, List.of(checker));
+        String divergence = checker.divergence;
+        if (divergence == null && result.score() != game.score()) {
+            divergence = "Score differs.";
+        }
+        if (divergence == null && (result.seekSucceeded() != game.seekSucceeded()
+                || result.scramSucceeded() != game.scramSucceeded())) {
+            divergence = "Phase outcomes differ.";
+        }
+        return new Outcome(game, result, divergence);
+    }
+
+    /** A diver that makes the moves of a journaled game. */
+    private static final class JournalDiver implements SewerDiver {
+        private final MoveJournal.Game game;
+
+        JournalDiver(MoveJournal.Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public void seek(SeekState state) {
+            for (MoveJournal.Move m : game.seekMoves()) {
+                state.moveTo(m.node());
+            }
+        }
+
+        @Override
+        public void scram(ScramState state) {
+            for (MoveJournal.Move m : game.scramMoves()) {
+                Node next = null;
+                for (Node n : state.currentNode().getNeighbors()) {
+                    if (n.getId() == m.node()) {
+                        next = n;
+                    }
+                }
+                if (next == null) {
+                    throw new IllegalStateException("journaled scram move to node " + m.node()
+                            + " is not to a neighbor");
+                }
+                state.moveTo(next);
+            }
+        }
+    }
+
+    /** Compares each move of the replay with the journal, remembering the first difference. */
+    static final class Checker implements GameListener {
+        private final MoveJournal.Game game;
+        private List<MoveJournal.Move> moves = List.of();
+        private String phase = "";
+        private int next;
+
+        /** The first difference found, or null */
+        String divergence;
+
+        Checker(MoveJournal.Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public void phaseStarted(String phase, Sewers sewers, Node start, int steps) {
+            this.phase = phase;
+            moves = phase.equals("seek") ? game.seekMoves() : game.scramMoves();
+            next = 0;
+        }
+
+        @Override
+        public void moved(Node to, int steps, int coins) {
+            if (divergence != null) {
+                return;
+            }
+            if (next >= moves.size()) {
+                divergence = phase + " made more moves than journaled.";
+                return;
+            }
+            MoveJournal.Move m = moves.get(next++);
+            if (m.node() != to.getId() || m.steps() != steps || m.coins() != coins) {
+                divergence = phase + " move " + next + " reached node " + to.getId()
+                        + " with " + steps + " steps and " + coins + " coins; journaled "
+                        + m.node() + ", " + m.steps() + " and " + m.coins() + ".";
+            }
+        }
+
+        @Override
+        public void phaseEnded(String phase, boolean succeeded, int score) {
+            if (divergence == null && next < moves.size()) {
+                divergence = phase + " stopped after " + next + " of " + moves.size()
+                        + " journaled moves.";
+            }
+        }
+    }
+}
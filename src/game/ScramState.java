@@ -22,6 +22,15 @@ public interface ScramState {
 	 * They are in no particular order. */
 	Collection<Node> allNodes();
 
+	/** Return the value of the coins still on n in this game.
+	 * Unlike the other methods, this one may be called from any thread,
+	 * e.g. the threads of a parallel stream, but it sees moves made on
+	 * other threads only once the caller has synchronized with them
+	 * (e.g. by starting or joining the helper threads).
+	 * Throw an IllegalArgumentException if n is not a node of this
+	 * sewer system. */
+	int coinsOn(Node n);
+
 	/** Change McDiver's location to n.
 	 * Throw an IllegalArgumentException if n is not directly connected to
 	 * McDiver's location. */
@@ -20,7 +20,8 @@ public interface SeekState {
 	 * (NB: This is NOT the distance in the graph, it is only the number
 	 * of rows and columns away from the ring.)
 	 * <p>
-	 * It is possible to move directly to any node identifier in this collection. */
+	 * It is possible to move directly to any node identifier in this collection.
+	 * The collection is unmodifiable. */
 	Collection<NodeStatus> neighbors();
 
 	/** Return McDiver's current distance along the grid (NOT THE GRAPH)
@@ -0,0 +1,326 @@
+package game;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A bounded cache of the sewer systems generated for a seed, so that playing the same seed again
+ * (another diver, a replay, a benchmark) does not dig them again. Games never change a Sewers,
+ * as coins taken are kept in each game's CoinState, so one cached pair may be played by any
+ * number of games at once.
+ * <p>
+ * Entries are keyed by seed and by the size profile (the bounds on rows and columns) they were
+ * generated with, and the least recently used are evicted once the estimated memory of all
+ * entries passes a limit. If a spill directory is given, evicted entries are written there,
+ * compressed, and read back instead of being dug again.
+ * <p>
+ * Thread-safe. Two threads asking for the same missing seed wait for one generation.
+ */
+public final class SewerCache {
+
+    /** A seed and the size profile its sewers are generated with. */
+    record Key(long seed, int minRows, int maxRows, int minCols, int maxCols) {
+
+        /** Return the key of seed with the size profile of GameState. */
+        static Key of(long seed) {
+            return new Key(seed, GameState.MIN_ROWS, GameState.MAX_ROWS, GameState.MIN_COLS,
+                    GameState.MAX_COLS);
+        }
+
+        /** Return the name of the file this key's entry is spilled to. */
+        String fileName() {
+            return "sewers-" + seed + "-" + minRows + "-" + maxRows + "-" + minCols + "-"
+                    + maxCols + ".txt.gz";
+        }
+    }
+
+    /**
+     * The sewers of a game: the seek and scram sewer systems, and the length of the shortest
+     * path from the entrance of the seek sewer to its ring.
+     */
+    public record Entry(Sewers seek, Sewers scram, int minSeekSteps) {
+
+        /** Return a rough estimate of the memory this entry holds (bytes). */
+        long footprint() {
+            return footprint(seek) + footprint(scram);
+        }
+
+        private static long footprint(Sewers s) {
+            long exits = 0;
+            for (Node n : s.graph()) {
+                exits += n.getExits().size();
+            }
+            return (long) s.rowCount() * s.columnCount() * TILE_BYTES
+                    + s.graph().size() * GRAPH_NODE_BYTES + exits * EXIT_BYTES;
+        }
+    }
+
+    /**
+     * Estimated bytes held per grid tile (its Node, Tile and empty edge sets), per node of the
+     * graph (its entry in the graph set) and per exit (the Edge and set entries for both ends)
+     */
+    private static final long TILE_BYTES = 320, GRAPH_NODE_BYTES = 48, EXIT_BYTES = 120;
+
+    /** Default memory limit of the shared cache (megabytes) */
+    public static final long DEFAULT_MEGABYTES = 64;
+
+    /** The cache used by GameState */
+    private static volatile SewerCache shared = new SewerCache(DEFAULT_MEGABYTES << 20, null);
+
+    private final long maxBytes;
+
+    /** Where evicted entries are written, or null to drop them */
+    private final Path spillDir;
+
+    /** The cached entries, least recently used first. Guarded by this. */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Entries being generated or read back, by key. Guarded by this. */
+    private final Map<Key, CompletableFuture<Entry>> loading = new HashMap<>();
+
+    /** Estimated bytes held by entries. Guarded by this. */
+    private long bytes;
+
+    /** Counts of lookups found in memory, read from the spill, and generated, and evictions */
+    private int hits, spillHits, misses, evictions;
+
+    /**
+     * Constructor: an empty cache holding entries of about maxBytes bytes in all, spilling
+     * evicted entries to spillDir (created if needed), or dropping them if spillDir is null.
+     */
+    public SewerCache(long maxBytes, Path spillDir) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("memory limit must not be negative: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        this.spillDir = spillDir;
+    }
+
+    /** Return the cache GameState takes its sewers from. */
+    public static SewerCache shared() {
+        return shared;
+    }
+
+    /**
+     * Replace the cache GameState takes its sewers from with one holding about megabytes
+     * megabytes and spilling to spillDir (null for none).
+     */
+    public static void configureShared(long megabytes, Path spillDir) {
+        shared = new SewerCache(megabytes << 20, spillDir);
+    }
+
+    /**
+     * Return the sewers of a game with seed seed, generating them as GameState always has if
+     * they are not cached.
+     */
+    public Entry get(long seed) {
+        return get(Key.of(seed));
+    }
+
+    /** Return the entry for key, loading it if it is not cached. */
+    Entry get(Key key) {
+        CompletableFuture<Entry> pending;
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e != null) {
+                hits++;
+                return e;
+            }
+            pending = loading.get(key);
+            if (pending == null) {
+                loading.put(key, new CompletableFuture<>());
+            }
+        }
+        if (pending != null) {
+            return pending.join();
+        }
+
+        Entry e;
+        List<Map.Entry<Key, Entry>> evicted;
+        CompletableFuture<Entry> done;
+        try {
+            e = load(key);
+        } catch (RuntimeException | Error ex) {
+            synchronized (this) {
+                done = loading.remove(key);
+            }
+            done.completeExceptionally(ex);
+            throw ex;
+        }
+        synchronized (this) {
+            done = loading.remove(key);
+            evicted = insert(key, e);
+        }
+        done.complete(e);
+        evicted.forEach(this::spill);
+        return e;
+    }
+
+    /**
+     * Add e to the entries as the most recently used, evict the least recently used until
+     * the entries fit, and return those evicted. An entry too big to fit is not kept.
+     * Requires: the lock on this is held.
+     */
+    private List<Map.Entry<Key, Entry>> insert(Key key, Entry e) {
+        List<Map.Entry<Key, Entry>> evicted = new ArrayList<>();
+        long size = e.footprint();
+        if (size > maxBytes) {
+            evicted.add(Map.entry(key, e));
+            return evicted;
+        }
+        entries.put(key, e);
+        bytes += size;
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            it.remove();
+            bytes -= eldest.getValue().footprint();
+            evicted.add(eldest);
+            evictions++;
+        }
+        return evicted;
+    }
+
+    /** Return the entry for key, read from the spill directory if it is there, else generated. */
+    private Entry load(Key key) {
+        if (spillDir != null) {
+            Path file = spillDir.resolve(key.fileName());
+            if (Files.exists(file)) {
+                try {
+                    Entry e = read(file);
+                    synchronized (this) {
+                        spillHits++;
+                    }
+                    return e;
+                } catch (IOException | RuntimeException ex) {
+                    // A damaged spill file is only a lost shortcut
+                    GameState.errPrintln("Ignoring sewer cache file " + file + ": " + ex);
+                }
+            }
+        }
+        synchronized (this) {
+            misses++;
+        }
+        return generate(key);
+    }
+
+    /**
+     * Return the sewers of key's seed generated with key's size profile, exactly as GameState
+     * has always dug them.
+     */
+    static Entry generate(Key key) {
+        Random rand = new Random(key.seed());
+        int rows = rand.nextInt(key.maxRows() - key.minRows() + 1) + key.minRows();
+        int cols = rand.nextInt(key.maxCols() - key.minCols() + 1) + key.minCols();
+        Sewers seek = Sewers.digExploreSewer(rows, cols, rand);
+        int minSeekSteps = seek.minPathLengthToRing(seek.entrance());
+        Tile ringTile = seek.ring().getTile();
+        Sewers scram = Sewers.digGetOutSewer(rows, cols, ringTile.row(), ringTile.column(), rand);
+        return new Entry(seek, scram, minSeekSteps);
+    }
+
+    /**
+     * Write evicted to the spill directory, if there is one and it is not already there.
+     * A failure to write is reported and otherwise ignored.
+     */
+    private void spill(Map.Entry<Key, Entry> evicted) {
+        if (spillDir == null) {
+            return;
+        }
+        Path file = spillDir.resolve(evicted.getKey().fileName());
+        if (Files.exists(file)) {
+            return;
+        }
+        try {
+            Files.createDirectories(spillDir);
+            Path tmp = Files.createTempFile(spillDir, "sewers-", ".tmp");
+            try {
+                write(evicted.getValue(), tmp);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException ex) {
+            GameState.errPrintln("Cannot spill sewers to " + file + ": " + ex);
+        }
+    }
+
+    /**
+     * Write e to file: a line with minSeekSteps and the number of lines of the seek sewer,
+     * then the serialized seek and scram sewers.
+     */
+    private static void write(Entry e, Path file) throws IOException {
+        List<String> seek = e.seek().serialize(), scram = e.scram().serialize();
+        try (BufferedWriter w = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8))) {
+            w.write(e.minSeekSteps() + "," + seek.size());
+            w.newLine();
+            for (String line : seek) {
+                w.write(line);
+                w.newLine();
+            }
+            for (String line : scram) {
+                w.write(line);
+                w.newLine();
+            }
+        }
+    }
+
+    /** Return the entry written to file by write(). */
+    private static Entry read(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            for (String line = r.readLine(); line != null; line = r.readLine()) {
+                lines.add(line);
+            }
+        }
+        String[] header = lines.get(0).split(",");
+        int minSeekSteps = Integer.parseInt(header[0]);
+        int seekLines = Integer.parseInt(header[1]);
+        Sewers seek = Sewers.deserialize(lines.subList(1, 1 + seekLines));
+        Sewers scram = Sewers.deserialize(lines.subList(1 + seekLines, lines.size()));
+        return new Entry(seek, scram, minSeekSteps);
+    }
+
+    /** Remove every entry from memory. Spilled entries are kept. */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /** Return the number of entries in memory. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Return the estimated bytes held by the entries in memory. */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("SewerCache[%d entries, %.1f of %.1f MB, %d hits, %d from spill,"
+                        + " %d generated, %d evicted]", entries.size(), bytes / 1048576.0,
+                maxBytes / 1048576.0, hits, spillHits, misses, evictions);
+    }
+}
@@ -0,0 +1,33 @@
+package game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight-recorder event for one attempt at generating a sewer that meets its requirements. */
+@Name("mcdiver.SewerGeneration")
+@Label("Sewer Generation Attempt")
+@Category({"McDiver", "Game"})
+@StackTrace(false)
+final class SewerGenerationEvent extends Event {
+
+    @Label("Kind")
+    @Description("\"seek\" for digExploreSewer, \"scram\" for digGetOutSewer")
+    String kind;
+
+    @Label("Attempt")
+    @Description("1 for the first sewer generated by this call, 2 for the next, and so on")
+    int attempt;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int columns;
+
+    @Label("Accepted")
+    boolean accepted;
+}
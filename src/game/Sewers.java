@@ -1,9 +1,14 @@
 package game;
 
+import graph.DeltaStepping;
+import graph.Landmarks;
+import graph.SearchStats;
+import graph.SearchWorkspace;
 import graph.ShortestPaths;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -119,6 +124,26 @@ public class Sewers {
      */
     private final Node[][] tiles;
 
+    /**
+     * Distances to the ring and neighbor statuses of every tile, built on first use
+     */
+    private volatile NeighborTable neighborTable;
+
+    /**
+     * Whether every edge has length 1 and joins two adjacent open tiles, and every two adjacent
+     * open tiles are joined; null until first asked
+     */
+    private volatile Boolean unitGrid;
+
+    /** The delta-stepping copy of the graph for distanceField(); null until first needed */
+    private volatile DeltaStepping<Node, Edge> deltaStepping;
+
+    /**
+     * For a unit grid, the distance from the ring to every tile by row * cols + column (see
+     * GridBitboard.distances()); null until first needed
+     */
+    private volatile int[] ringDistances;
+
     /**
      * Return a new random sewer system with r rows, c columns, and no
      * coins, all edges have weight 1, and there is a ring a reasonable
@@ -128,13 +153,36 @@ public class Sewers {
     public static Sewers digExploreSewer(int r, int c, Random rand) {
         int minRingDist = minRingDistance(r, c);
 
-        Sewers sewers = new Sewers(r, c, rand, () -> 1, () -> 0, Tile.TileType.RING);
-        while (sewers.minPathLengthToRing(sewers.entrance()) < minRingDist) {
+        Sewers sewers;
+        boolean accepted;
+        int attempt = 0;
+        do {
+            SewerGenerationEvent event = new SewerGenerationEvent();
+            event.begin();
             sewers = new Sewers(r, c, rand, () -> 1, () -> 0, Tile.TileType.RING);
-        }
+            accepted = sewers.minPathLengthToRing(sewers.entrance()) >= minRingDist;
+            recordAttempt(event, "seek", ++attempt, r, c, accepted);
+        } while (!accepted);
         return sewers;
     }
 
+    /**
+     * Commit event, which timed attempt number attempt at generating an r by c sewer of the
+     * given kind, if the flight recorder wants it.
+     */
+    private static void recordAttempt(SewerGenerationEvent event, String kind, int attempt,
+            int r, int c, boolean accepted) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.attempt = attempt;
+            event.rows = r;
+            event.columns = c;
+            event.accepted = accepted;
+            event.commit();
+        }
+    }
+
     /**
      * Return the minimum allowable path distance from the entrance to
      * the ring. The graph has r rows and c columns.
@@ -153,12 +201,18 @@ public class Sewers {
             Random rand) {
         Supplier<Integer> edgeWeightGen = () -> rand.nextInt(MAX_EDGE_WEIGHT) + 1;
         Supplier<Integer> coinGen = () -> Sewers.randomCoinValue(rand);
-        Sewers potentialCavern = new Sewers(r, c, rand, edgeWeightGen, coinGen,
-                Tile.TileType.ENTRANCE);
-        while (potentialCavern.tileAt(currentRow, currentCol).type() != Tile.TileType.FLOOR) {
+        Sewers potentialCavern;
+        boolean accepted;
+        int attempt = 0;
+        do {
+            SewerGenerationEvent event = new SewerGenerationEvent();
+            event.begin();
             potentialCavern = new Sewers(r, c, rand, edgeWeightGen, coinGen,
                     Tile.TileType.ENTRANCE);
-        }
+            accepted = potentialCavern.tileAt(currentRow, currentCol).type()
+                    == Tile.TileType.FLOOR;
+            recordAttempt(event, "scram", ++attempt, r, c, accepted);
+        } while (!accepted);
         return potentialCavern;
     }
 
@@ -395,6 +449,64 @@ public class Sewers {
         return graph;
     }
 
+    /**
+     * Return the table of distances to the ring and neighbor statuses of this sewer system,
+     * building it on the first call. Safe to call from several threads.
+     */
+    NeighborTable neighborTable() {
+        NeighborTable t = neighborTable;
+        if (t == null) {
+            synchronized (this) {
+                t = neighborTable;
+                if (t == null) {
+                    t = new NeighborTable(this);
+                    neighborTable = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Return whether this sewer system is a unit grid: every edge has length 1 and joins two
+     * orthogonally adjacent open tiles, and every two such tiles are joined, as in the sewers
+     * of digExploreSewer(). Then shortest paths are those of the grid of open tiles. Checked on
+     * the first call. Safe to call from several threads.
+     */
+    boolean hasUnitGrid() {
+        Boolean u = unitGrid;
+        if (u == null) {
+            u = checkUnitGrid();
+            unitGrid = u;
+        }
+        return u;
+    }
+
+    /** Return whether this sewer system is a unit grid, checking every node. */
+    private boolean checkUnitGrid() {
+        for (Node n : graph) {
+            int r = n.getTile().row(), c = n.getTile().column();
+            int adjacent = 0;
+            for (Direction d : Direction.values()) {
+                Point q = new Point(r, c).add(d.direction());
+                if (0 <= q.row && q.row < rows && 0 <= q.col && q.col < cols
+                        && graph.contains(tiles[q.row][q.col])) {
+                    adjacent++;
+                }
+            }
+            if (adjacent != n.getExits().size()) {
+                return false;
+            }
+            for (Edge e : n.getExits()) {
+                Tile t = e.destination().getTile();
+                if (e.length() != 1 || Math.abs(t.row() - r) + Math.abs(t.column() - c) != 1) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Return the node corresponding to the entrance to the sewer system.
      */
@@ -425,6 +537,58 @@ public class Sewers {
         return tiles[r][c];
     }
 
+    /**
+     * Return at most k landmarks for goal-directed searches of this sewer system, holding no
+     * more than maxBytes of distances: open tiles on the border of the open area (the first
+     * and last open tile of each row and column), spread out by farthest-point selection
+     * from the entrance's side. Computing them costs a search from each landmark, done in
+     * parallel, so callers should keep the result for many queries.
+     */
+    public Landmarks<Node, Edge> landmarks(int k, long maxBytes) {
+        List<Node> border = new ArrayList<>();
+        Set<Node> seen = new HashSet<>();
+        for (int r = 0; r < rows; r++) {
+            borderOf(border, seen, r, 0, 0, 1);
+            borderOf(border, seen, r, cols - 1, 0, -1);
+        }
+        for (int c = 0; c < cols; c++) {
+            borderOf(border, seen, 0, c, 1, 0);
+            borderOf(border, seen, rows - 1, c, -1, 0);
+        }
+        // Start from the tile farthest from the entrance, so that it is covered well
+        Node first = border.get(0);
+        for (Node n : border) {
+            if (gridDistance(n, entrance) > gridDistance(first, entrance)) {
+                first = n;
+            }
+        }
+        border.remove(first);
+        border.add(0, first);
+        return Landmarks.select(maze, border, k, maxBytes, Sewers::gridDistance);
+    }
+
+    /**
+     * Effect: add to border, unless it is in seen, the first node of the graph found walking
+     * from (r, c) in direction (dr, dc).
+     */
+    private void borderOf(List<Node> border, Set<Node> seen, int r, int c, int dr, int dc) {
+        for (; 0 <= r && r < rows && 0 <= c && c < cols; r += dr, c += dc) {
+            Node n = tiles[r][c];
+            if (graph.contains(n)) {
+                if (seen.add(n)) {
+                    border.add(n);
+                }
+                return;
+            }
+        }
+    }
+
+    /** The Manhattan distance between the tiles of a and b. */
+    private static double gridDistance(Node a, Node b) {
+        return Math.abs(a.getTile().row() - b.getTile().row())
+                + Math.abs(a.getTile().column() - b.getTile().column());
+    }
+
     // NOTE: if you are having trouble getting Dijkstra's algorithm to work well
     // enough to let the game run, you can change USE_MANHATTAN_DISTANCE to true
     // to allow progress on other tasks. However, it should be changed back to false
@@ -434,18 +598,73 @@ public class Sewers {
     /**
      * Returns: the shortest distance from node start to ring node -- unless
      * MANHATTAN_DISTANCE is true, in which case it just returns the Manhattan
-     * distance between the nodes.
+     * distance between the nodes. In a unit grid, as in seek sewers, the distances
+     * to the ring are found all at once by a bit-parallel breadth-first search and
+     * kept for later calls.
      * Requires: start must be a node of the graph.
      */
     int minPathLengthToRing(Node start) {
         if (USE_MANHATTAN_DISTANCE) {
             return (int) manhattanDistanceToRing(start);
         }
-        ShortestPaths<Node, Edge> dijkstra = new ShortestPaths<>(maze);
+        if (hasUnitGrid()) {
+            return ringDistances()[start.getTile().row() * cols + start.getTile().column()];
+        }
+        ShortestPaths<Node, Edge> dijkstra = new ShortestPaths<>(maze, SearchStats.NONE,
+                SearchWorkspace.forCurrentThread());
         dijkstra.singleSourceDistances(start);
         return (int) dijkstra.getDistance(ring);
     }
 
+    /**
+     * Return the distance from the ring to every tile, computing it on the first call.
+     * Requires: this sewer system has a unit grid. Safe to call from several threads.
+     */
+    private int[] ringDistances() {
+        int[] d = ringDistances;
+        if (d == null) {
+            // Edges come in equal pairs, so distances from the ring are distances to it
+            d = GridBitboard.of(this).distances(ring);
+            ringDistances = d;
+        }
+        return d;
+    }
+
+    /**
+     * Bucket width of the delta-stepping searches of distanceField(). With every edge light,
+     * large scram sewers get the most buckets big enough to relax in parallel, and relax
+     * vertices only about 1.5% more often than Dijkstra's algorithm
+     */
+    private static final int DELTA = MAX_EDGE_WEIGHT;
+
+    /**
+     * Return the distance from source to every tile, by row * columnCount() + column: the
+     * length of a shortest path, or -1 for walls and tiles source does not reach. A unit grid
+     * is searched by bit-parallel BFS, any other sewer system by delta-stepping on the common
+     * ForkJoinPool. Safe to call from several threads.
+     * Requires: source is a node of the graph.
+     */
+    public int[] distanceField(Node source) {
+        if (hasUnitGrid()) {
+            return GridBitboard.of(this).distances(source);
+        }
+        DeltaStepping<Node, Edge> ds = deltaStepping;
+        if (ds == null) {
+            ds = new DeltaStepping<>(maze, graph, DELTA);
+            deltaStepping = ds;
+        }
+        int[] d = ds.distances(source);
+        int[] field = new int[rows * cols];
+        Arrays.fill(field, -1);
+        for (Node n : graph) {
+            int dn = d[maze.index(n)];
+            if (dn != DeltaStepping.UNREACHED) {
+                field[n.getTile().row() * cols + n.getTile().column()] = dn;
+            }
+        }
+        return field;
+    }
+
     /** The Manhattan distance from start to the ring. */
     int manhattanDistanceToRing(Node start) {
         return Math.abs(start.getTile().row() - ring.getTile().row())
@@ -463,7 +682,7 @@ public class Sewers {
         for (Node n : graph) {
             Tile t = n.getTile();
             String nodeStr = n.getId() + "," + t.row() + "," + t.column() +
-                    "," + t.coins() + "," + t.type().name();
+                    "," + t.originalCoinValue() + "," + t.type().name();
 
             String edges = n.getExits().stream()
                     .map((e) -> e.getOther(n).getId() + "-" + e.length())
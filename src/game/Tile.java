@@ -1,6 +1,9 @@
 package game;
 
-/** A tile on the game board. */
+/**
+ * A tile on the game board. Its coins are not stored here: which have been taken is kept, per
+ * game, by a CoinState, so that tiles can be shared by games on several threads.
+ */
 public class Tile {
 
     /**
@@ -28,11 +31,6 @@ public class Tile {
      */
     private TileType tileType;
 
-    /**
-     * True iff the coins on this Tile have been piceked up
-     */
-    private boolean coinsPickedUp;
-
     /**
      * Constructor: an instance with row r, column c, coin-value cv, and Type t.
      */
@@ -41,14 +39,16 @@ public class Tile {
         col = c;
         coinValue = cv;
         tileType = t;
-        coinsPickedUp = false;
     }
 
     /**
-     * Return the value of coins on this Tile.
+     * Return the value of coins on this Tile in the game whose CoinState is bound to the
+     * calling thread. Throw an IllegalStateException if no CoinState for this tile is bound.
+     * The binding is only on the thread running the phase: other threads of a diver, e.g.
+     * those of a parallel stream, must use ScramState.coinsOn().
      */
     public int coins() {
-        return coinsPickedUp ? 0 : coinValue;
+        return boundCoins().coins(this);
     }
 
     /**
@@ -87,12 +87,25 @@ public class Tile {
     }
 
     /**
-     * Set the value of coins on this Node to 0 and return the amount "taken"
+     * Set the value of coins on this Node to 0, in the game whose CoinState is bound to the
+     * calling thread, and return the amount "taken". Throw an IllegalStateException if no
+     * CoinState for this tile is bound.
      */
     public int takeCoins() {
-        int result = coins();
-        coinsPickedUp = true;
-        return result;
+        return boundCoins().take(this);
+    }
+
+    /**
+     * Return the CoinState for this tile bound to the calling thread. Throw an
+     * IllegalStateException if there is none.
+     */
+    private CoinState boundCoins() {
+        CoinState s = CoinState.boundFor(this);
+        if (s == null) {
+            throw new IllegalStateException("No game's coins are bound to this thread;"
+                    + " off the phase thread, use ScramState.coinsOn()");
+        }
+        return s;
     }
 
     public String toString() {
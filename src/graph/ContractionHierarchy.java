@@ -0,0 +1,564 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * A contraction-hierarchy index over a static weighted directed graph, answering
+ * point-to-point distance and path queries by searching only a small part of the graph.
+ * <p>
+ * Building ranks the vertices, least important first, by their edge difference (the shortcuts
+ * contracting a vertex would add, less the arcs it would remove) plus the number of its
+ * neighbors already contracted, and contracts them in that order. Contracting a vertex v adds a
+ * shortcut u -> w for each pair of arcs u -> v -> w unless a witness search finds a path from
+ * u to w that avoids v and is no longer. A query then runs two Dijkstra searches that only go
+ * up in rank, forward from the source over arcs to higher vertices and backward from the
+ * target over arcs from higher vertices, and the best vertex where they meet gives the
+ * distance. Shortcuts remember the two arcs they replace, so paths unpack into the graph's
+ * own edges.
+ * <p>
+ * The initial priorities, one witness-search simulation per vertex, are computed in parallel;
+ * contraction itself is sequential. stats() reports the preprocessing time and memory.
+ * <p>
+ * The index is immutable and may be shared between threads; each thread queries it through
+ * its own Query.
+ */
+public final class ContractionHierarchy<V, E> {
+
+    /**
+     * What building the index cost: the number of vertices, of original arcs and of shortcuts
+     * added, the time taken, and the estimated memory of the index (bytes).
+     */
+    public record BuildStats(int vertices, int arcs, int shortcuts, long millis, long bytes) {
+        @Override
+        public String toString() {
+            return String.format("%d vertices, %d arcs, %d shortcuts, built in %d ms,"
+                    + " %.1f MB", vertices, arcs, shortcuts, millis, bytes / 1048576.0);
+        }
+    }
+
+    /**
+     * Most vertices a witness search settles before giving up, in which case the shortcut is
+     * added anyway
+     */
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final IndexedDigraph<V, E> graph;
+
+    /** Number of vertices, the compact number of each vertex by graph index (-1 if none), and
+     *  the vertex of each compact number */
+    private final int n;
+    private final int[] compact;
+    private final Object[] vertexOf;
+
+    /**
+     * Every arc, original or shortcut: its ends and weight, the graph edge of an original arc
+     * (null for a shortcut), and the two arcs a shortcut replaces (-1 for an original)
+     */
+    private final int[] arcFrom, arcTo;
+    private final double[] arcWeight;
+    private final Object[] arcEdge;
+    private final int[] arcFirst, arcSecond;
+
+    /**
+     * Arcs u -> w going up in rank, grouped by u, and arcs u -> w going down in rank, grouped
+     * by w: upArcs[upStart[u] .. upStart[u + 1] - 1] and likewise for down
+     */
+    private final int[] upStart, upArcs, downStart, downArcs;
+
+    private final BuildStats stats;
+
+    /**
+     * Return a contraction hierarchy of graph, whose vertices are vertices.
+     */
+    public static <V, E> ContractionHierarchy<V, E> build(IndexedDigraph<V, E> graph,
+            Collection<V> vertices) {
+        return new ContractionHierarchy<>(graph, vertices);
+    }
+
+    private ContractionHierarchy(IndexedDigraph<V, E> graph, Collection<V> vertices) {
+        long start = System.nanoTime();
+        this.graph = graph;
+        n = vertices.size();
+        compact = new int[graph.vertexCount()];
+        Arrays.fill(compact, -1);
+        vertexOf = new Object[n];
+        int next = 0;
+        for (V v : vertices) {
+            compact[graph.index(v)] = next;
+            vertexOf[next++] = v;
+        }
+
+        Builder b = new Builder(n);
+        for (int u = 0; u < n; u++) {
+            @SuppressWarnings("unchecked")
+            V v = (V) vertexOf[u];
+            for (E e : graph.outgoingEdges(v)) {
+                b.addArc(u, compact[graph.index(graph.dest(e))], graph.weight(e), e, -1, -1);
+            }
+        }
+        int originals = b.arcs;
+        int[] rank = b.contractAll();
+
+        arcFrom = Arrays.copyOf(b.from, b.arcs);
+        arcTo = Arrays.copyOf(b.to, b.arcs);
+        arcWeight = Arrays.copyOf(b.weight, b.arcs);
+        arcEdge = Arrays.copyOf(b.edge, b.arcs);
+        arcFirst = Arrays.copyOf(b.first, b.arcs);
+        arcSecond = Arrays.copyOf(b.second, b.arcs);
+
+        upStart = new int[n + 1];
+        downStart = new int[n + 1];
+        for (int a = 0; a < arcFrom.length; a++) {
+            if (rank[arcTo[a]] > rank[arcFrom[a]]) {
+                upStart[arcFrom[a] + 1]++;
+            } else if (rank[arcFrom[a]] > rank[arcTo[a]]) {
+                downStart[arcTo[a] + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            upStart[v + 1] += upStart[v];
+            downStart[v + 1] += downStart[v];
+        }
+        upArcs = new int[upStart[n]];
+        downArcs = new int[downStart[n]];
+        int[] upFill = Arrays.copyOf(upStart, n), downFill = Arrays.copyOf(downStart, n);
+        for (int a = 0; a < arcFrom.length; a++) {
+            if (rank[arcTo[a]] > rank[arcFrom[a]]) {
+                upArcs[upFill[arcFrom[a]]++] = a;
+            } else if (rank[arcFrom[a]] > rank[arcTo[a]]) {
+                downArcs[downFill[arcTo[a]]++] = a;
+            }
+        }
+
+        long bytes = (long) arcFrom.length * (4 + 4 + 8 + 8 + 4 + 4)
+                + 4L * (upArcs.length + downArcs.length) + 8L * (n + 1)
+                + 4L * compact.length + 8L * n;
+        stats = new BuildStats(n, originals, arcFrom.length - originals,
+                (System.nanoTime() - start) / 1_000_000, bytes);
+    }
+
+    /** Return what building this index cost. */
+    public BuildStats stats() {
+        return stats;
+    }
+
+    /**
+     * Return a new query object. A Query keeps its storage between queries, so a thread should
+     * reuse one for many.
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    /**
+     * Point-to-point queries on the hierarchy. Not thread-safe.
+     */
+    public final class Query {
+        private final Dijkstra forward = new Dijkstra(n), backward = new Dijkstra(n);
+
+        /** The vertex where the best path found by the last search passes from the forward to
+         *  the backward search, or -1 if none was found */
+        private int meet;
+
+        private Query() {
+        }
+
+        /** Return the length of the best path from s to t; infinity if there is none. */
+        public double distance(V s, V t) {
+            return search(s, t);
+        }
+
+        /**
+         * Return the edges of a best path from s to t, or null if t is unreachable from s.
+         */
+        @SuppressWarnings("unchecked")
+        public List<E> path(V s, V t) {
+            if (search(s, t) == Double.POSITIVE_INFINITY) {
+                return null;
+            }
+            List<Integer> arcs = new ArrayList<>();
+            for (int v = meet; forward.parent(v) >= 0; v = arcFrom[forward.parent(v)]) {
+                arcs.add(forward.parent(v));
+            }
+            Collections.reverse(arcs);
+            for (int v = meet; backward.parent(v) >= 0; v = arcTo[backward.parent(v)]) {
+                arcs.add(backward.parent(v));
+            }
+            List<E> path = new ArrayList<>();
+            int[] stack = new int[16];
+            for (int top : arcs) {
+                int size = 0;
+                stack[size++] = top;
+                while (size > 0) {
+                    int a = stack[--size];
+                    if (arcFirst[a] < 0) {
+                        path.add((E) arcEdge[a]);
+                    } else {
+                        if (size + 2 > stack.length) {
+                            stack = Arrays.copyOf(stack, 2 * stack.length);
+                        }
+                        stack[size++] = arcSecond[a];
+                        stack[size++] = arcFirst[a];
+                    }
+                }
+            }
+            return path;
+        }
+
+        /** Run the two upward searches from s and t, set meet, and return the distance. */
+        private double search(V s, V t) {
+            int si = compact[graph.index(s)], ti = compact[graph.index(t)];
+            forward.start();
+            backward.start();
+            forward.relax(si, 0, -1);
+            backward.relax(ti, 0, -1);
+            double best = Double.POSITIVE_INFINITY;
+            meet = -1;
+            while (true) {
+                double fk = forward.minKey(), bk = backward.minKey();
+                if (Math.min(fk, bk) >= best) {
+                    break;
+                }
+                boolean fwd = fk <= bk;
+                Dijkstra side = fwd ? forward : backward, other = fwd ? backward : forward;
+                int v = side.pop();
+                double dv = side.dist(v);
+                if (other.reached(v) && dv + other.dist(v) < best) {
+                    best = dv + other.dist(v);
+                    meet = v;
+                }
+                if (fwd) {
+                    for (int i = upStart[v]; i < upStart[v + 1]; i++) {
+                        int a = upArcs[i];
+                        forward.relax(arcTo[a], dv + arcWeight[a], a);
+                    }
+                } else {
+                    for (int i = downStart[v]; i < downStart[v + 1]; i++) {
+                        int a = downArcs[i];
+                        backward.relax(arcFrom[a], dv + arcWeight[a], a);
+                    }
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * A Dijkstra search over vertices 0 .. n - 1 with a lazy binary heap (entries made stale by a
+     * shorter distance are skipped when popped). Starting a new search takes constant time, as
+     * in SearchWorkspace.
+     */
+    private static final class Dijkstra {
+        private final double[] dist;
+        private final int[] parent;
+        private final int[] stamp, settledStamp;
+        private int epoch;
+        private int settled;
+
+        private double[] heapKey = new double[64];
+        private int[] heapVertex = new int[64];
+        private int heapSize;
+
+        Dijkstra(int n) {
+            dist = new double[n];
+            parent = new int[n];
+            stamp = new int[n];
+            settledStamp = new int[n];
+        }
+
+        void start() {
+            if (++epoch == 0) {
+                Arrays.fill(stamp, 0);
+                Arrays.fill(settledStamp, 0);
+                epoch = 1;
+            }
+            heapSize = 0;
+            settled = 0;
+        }
+
+        boolean reached(int v) {
+            return stamp[v] == epoch;
+        }
+
+        double dist(int v) {
+            return dist[v];
+        }
+
+        /** The arc v was last reached through, or -1 for a start */
+        int parent(int v) {
+            return parent[v];
+        }
+
+        /** Number of vertices popped since start() */
+        int settled() {
+            return settled;
+        }
+
+        /** Effect: reach v at distance d through arc a, if that is better than before. */
+        void relax(int v, double d, int a) {
+            if (stamp[v] == epoch && d >= dist[v]) {
+                return;
+            }
+            stamp[v] = epoch;
+            dist[v] = d;
+            parent[v] = a;
+            push(d, v);
+        }
+
+        /** Return the least distance on the heap that is not stale; infinity if none. */
+        double minKey() {
+            while (heapSize > 0 && stale(0)) {
+                removeTop();
+            }
+            return heapSize == 0 ? Double.POSITIVE_INFINITY : heapKey[0];
+        }
+
+        /** Remove and return the nearest unsettled vertex. Requires: minKey() is finite. */
+        int pop() {
+            minKey();
+            int v = heapVertex[0];
+            removeTop();
+            settledStamp[v] = epoch;
+            settled++;
+            return v;
+        }
+
+        private boolean stale(int i) {
+            int v = heapVertex[i];
+            return settledStamp[v] == epoch || heapKey[i] > dist[v];
+        }
+
+        private void push(double key, int v) {
+            if (heapSize == heapKey.length) {
+                heapKey = Arrays.copyOf(heapKey, 2 * heapSize);
+                heapVertex = Arrays.copyOf(heapVertex, 2 * heapSize);
+            }
+            int k = heapSize++;
+            while (k > 0) {
+                int p = (k - 1) >>> 1;
+                if (heapKey[p] <= key) {
+                    break;
+                }
+                heapKey[k] = heapKey[p];
+                heapVertex[k] = heapVertex[p];
+                k = p;
+            }
+            heapKey[k] = key;
+            heapVertex[k] = v;
+        }
+
+        private void removeTop() {
+            double key = heapKey[--heapSize];
+            int v = heapVertex[heapSize];
+            int k = 0;
+            while (true) {
+                int c = 2 * k + 1;
+                if (c >= heapSize) {
+                    break;
+                }
+                if (c + 1 < heapSize && heapKey[c + 1] < heapKey[c]) {
+                    c++;
+                }
+                if (heapKey[c] >= key) {
+                    break;
+                }
+                heapKey[k] = heapKey[c];
+                heapVertex[k] = heapVertex[c];
+                k = c;
+            }
+            if (heapSize > 0) {
+                heapKey[k] = key;
+                heapVertex[k] = v;
+            }
+        }
+    }
+
+    /** The graph being contracted: growable arc arrays, and the arcs in and out of each vertex. */
+    private static final class Builder {
+        private final int n;
+        int arcs;
+        int[] from = new int[1024], to = new int[1024], first = new int[1024],
+                second = new int[1024];
+        double[] weight = new double[1024];
+        Object[] edge = new Object[1024];
+
+        /** Arc ids out of and into each vertex, including arcs to contracted vertices */
+        private final int[][] out, in;
+        private final int[] outSize, inSize;
+
+        private final boolean[] contracted;
+
+        /** Number of contracted neighbors of each vertex */
+        private final int[] deleted;
+
+        /** A witness search per thread, for the parallel initial priorities */
+        private final ThreadLocal<Dijkstra> witness;
+
+        Builder(int n) {
+            this.n = n;
+            out = new int[n][];
+            in = new int[n][];
+            outSize = new int[n];
+            inSize = new int[n];
+            contracted = new boolean[n];
+            deleted = new int[n];
+            witness = ThreadLocal.withInitial(() -> new Dijkstra(n));
+        }
+
+        void addArc(int u, int w, double wt, Object e, int a1, int a2) {
+            if (arcs == from.length) {
+                int size = 2 * arcs;
+                from = Arrays.copyOf(from, size);
+                to = Arrays.copyOf(to, size);
+                first = Arrays.copyOf(first, size);
+                second = Arrays.copyOf(second, size);
+                weight = Arrays.copyOf(weight, size);
+                edge = Arrays.copyOf(edge, size);
+            }
+            int a = arcs++;
+            from[a] = u;
+            to[a] = w;
+            weight[a] = wt;
+            edge[a] = e;
+            first[a] = a1;
+            second[a] = a2;
+            out[u] = append(out[u], outSize[u]++, a);
+            in[w] = append(in[w], inSize[w]++, a);
+        }
+
+        private static int[] append(int[] list, int size, int a) {
+            if (list == null) {
+                list = new int[4];
+            } else if (size == list.length) {
+                list = Arrays.copyOf(list, 2 * size);
+            }
+            list[size] = a;
+            return list;
+        }
+
+        /**
+         * Contract every vertex, least important first, adding shortcuts, and return the rank
+         * of each vertex.
+         */
+        int[] contractAll() {
+            int[] priority = IntStream.range(0, n).parallel()
+                    .map(v -> contract(v, false, witness.get()) + deleted[v]).toArray();
+            PriorityQueue<long[]> queue = new PriorityQueue<>(Math.max(1, n),
+                    (x, y) -> x[0] != y[0] ? Long.compare(x[0], y[0]) : Long.compare(x[1], y[1]));
+            for (int v = 0; v < n; v++) {
+                queue.add(new long[] {priority[v], v});
+            }
+            Dijkstra search = new Dijkstra(n);
+            int[] rank = new int[n];
+            int next = 0;
+            while (!queue.isEmpty()) {
+                long[] top = queue.poll();
+                int v = (int) top[1];
+                // Priorities go stale as neighbors are contracted; recompute before committing
+                long p = contract(v, false, search) + deleted[v];
+                if (!queue.isEmpty() && p > queue.peek()[0]) {
+                    queue.add(new long[] {p, v});
+                    continue;
+                }
+                contract(v, true, search);
+                contracted[v] = true;
+                rank[v] = next++;
+                for (int i = 0; i < outSize[v]; i++) {
+                    deleted[to[out[v][i]]]++;
+                }
+                for (int i = 0; i < inSize[v]; i++) {
+                    deleted[from[in[v][i]]]++;
+                }
+            }
+            return rank;
+        }
+
+        /**
+         * Find the shortcuts contracting v requires and, if add, add them; return the edge
+         * difference: shortcuts needed less the arcs of v to uncontracted vertices.
+         */
+        private int contract(int v, boolean add, Dijkstra search) {
+            int removed = 0, shortcuts = 0;
+            double maxOut = 0;
+            for (int i = 0; i < outSize[v]; i++) {
+                int a = out[v][i];
+                if (!contracted[to[a]] && to[a] != v) {
+                    removed++;
+                    maxOut = Math.max(maxOut, weight[a]);
+                }
+            }
+            for (int i = 0; i < inSize[v]; i++) {
+                int a = in[v][i];
+                int u = from[a];
+                if (contracted[u] || u == v) {
+                    continue;
+                }
+                removed++;
+                if (!isBestArc(in[v], inSize[v], i, true)) {
+                    continue;
+                }
+                witnessSearch(search, u, v, weight[a] + maxOut);
+                for (int j = 0; j < outSize[v]; j++) {
+                    int b = out[v][j];
+                    int w = to[b];
+                    if (contracted[w] || w == v || w == u
+                            || !isBestArc(out[v], outSize[v], j, false)) {
+                        continue;
+                    }
+                    double via = weight[a] + weight[b];
+                    if (search.reached(w) && search.dist(w) <= via) {
+                        continue;
+                    }
+                    shortcuts++;
+                    if (add) {
+                        addArc(u, w, via, null, a, b);
+                    }
+                }
+            }
+            return shortcuts - removed;
+        }
+
+        /**
+         * Return whether arc arcs[i] is the first of the lightest arcs between its ends, looking
+         * at arcs[0 .. size - 1], which all enter (if incoming) or leave the same vertex.
+         */
+        private boolean isBestArc(int[] arcs, int size, int i, boolean incoming) {
+            int a = arcs[i];
+            int end = incoming ? from[a] : to[a];
+            for (int j = 0; j < size; j++) {
+                int b = arcs[j];
+                if ((incoming ? from[b] : to[b]) == end
+                        && (weight[b] < weight[a] || weight[b] == weight[a] && j < i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Effect: search from u, avoiding v and contracted vertices, until the nearest
+         * unsettled vertex is farther than limit or WITNESS_SETTLE_LIMIT vertices are settled.
+         */
+        private void witnessSearch(Dijkstra search, int u, int v, double limit) {
+            search.start();
+            search.relax(u, 0, -1);
+            while (search.minKey() <= limit && search.settled() < WITNESS_SETTLE_LIMIT) {
+                int x = search.pop();
+                double dx = search.dist(x);
+                for (int i = 0; i < outSize[x]; i++) {
+                    int a = out[x][i];
+                    int y = to[a];
+                    if (y != v && !contracted[y]) {
+                        search.relax(y, dx + weight[a], a);
+                    }
+                }
+            }
+        }
+    }
+}
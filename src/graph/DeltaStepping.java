@@ -0,0 +1,250 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel single-source distances by delta-stepping (Meyer and Sanders). Vertices are kept in
+ * buckets of width delta by tentative distance. The lowest bucket is emptied in rounds that
+ * relax the light edges (weight at most delta) of all its vertices at once, since those can
+ * put vertices back into it, and then the heavy edges of every vertex it held are relaxed at
+ * once. Each such batch is split among the threads of a ForkJoinPool, which lower distances in
+ * a shared int array with compare-and-set, so the result does not depend on the order of the
+ * relaxations and matches ShortestPaths exactly.
+ * <p>
+ * The graph is copied into arrays when a DeltaStepping is created, with each vertex's light
+ * edges first, so it should be created once per graph and delta and reused. Its weights must be
+ * nonnegative whole numbers, and distances must fit in an int. Immutable, so any number of
+ * threads may compute distances with one DeltaStepping at once.
+ *
+ * @param <V> the type of vertices
+ * @param <E> the type of edges
+ */
+public final class DeltaStepping<V, E> {
+
+    /** The distance of a vertex the source does not reach */
+    public static final int UNREACHED = Integer.MAX_VALUE;
+
+    /** Batches of fewer vertices than this are relaxed by the calling thread alone */
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    /** Vertices per task of a parallel batch */
+    private static final int CHUNK = 128;
+
+    private final IndexedDigraph<V, E> graph;
+    private final int delta;
+
+    /**
+     * The edges leaving vertex i are first[i] .. first[i + 1] - 1, the light ones up to
+     * lightEnd[i] - 1, with destination index to[k] and weight weight[k]
+     */
+    private final int[] first, lightEnd, to, weight;
+
+    /**
+     * Constructor: delta-stepping with buckets of width delta over graph, whose vertices are
+     * vertices. Requires: delta > 0, and the weights of graph are nonnegative whole numbers.
+     */
+    public DeltaStepping(IndexedDigraph<V, E> graph, Collection<V> vertices, int delta) {
+        if (delta <= 0) {
+            throw new IllegalArgumentException("delta must be positive: " + delta);
+        }
+        this.graph = graph;
+        this.delta = delta;
+        int n = graph.vertexCount();
+        first = new int[n + 1];
+        lightEnd = new int[n];
+        for (V v : vertices) {
+            for (E e : graph.outgoingEdges(v)) {
+                first[graph.index(v) + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            first[i + 1] += first[i];
+        }
+        to = new int[first[n]];
+        weight = new int[first[n]];
+        for (V v : vertices) {
+            int i = graph.index(v);
+            int light = first[i], heavy = first[i + 1];
+            for (E e : graph.outgoingEdges(v)) {
+                double w = graph.weight(e);
+                if (w < 0 || w != (int) w) {
+                    throw new IllegalArgumentException("weight is not a nonnegative whole number: "
+                            + w);
+                }
+                int k = w <= delta ? light++ : --heavy;
+                to[k] = graph.index(graph.dest(e));
+                weight[k] = (int) w;
+            }
+            lightEnd[i] = light;
+        }
+    }
+
+    /** Return the width of the buckets. */
+    public int delta() {
+        return delta;
+    }
+
+    /**
+     * Return the distance from source to every vertex, by index (UNREACHED for those it does not
+     * reach), computed on the common ForkJoinPool.
+     */
+    public int[] distances(V source) {
+        return distances(source, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Return the distance from source to every vertex, by index (UNREACHED for those it does not
+     * reach), computed on pool.
+     */
+    public int[] distances(V source, ForkJoinPool pool) {
+        int n = graph.vertexCount();
+        AtomicIntegerArray dist = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            dist.set(i, UNREACHED);
+        }
+        int s = graph.index(source);
+        dist.set(s, 0);
+        Bag[] buckets = {new Bag()};
+        buckets[0].add(s);
+        // inRound[v]: the last round v was taken into; inBucket[v]: 1 + the last bucket it
+        // was settled in
+        int[] inRound = new int[n], inBucket = new int[n];
+        int round = 0;
+
+        for (int b = 0; b < buckets.length; b++) {
+            Bag settled = new Bag();
+            while (true) {
+                Bag taken = buckets[b];
+                if (taken == null) {
+                    break;
+                }
+                buckets[b] = null;
+                round++;
+                Bag batch = new Bag();
+                for (int k = 0; k < taken.size; k++) {
+                    int v = taken.items[k];
+                    // Skip stale entries: moved to another bucket, or already in this round
+                    if (dist.get(v) / delta == b && inRound[v] != round) {
+                        inRound[v] = round;
+                        batch.add(v);
+                        if (inBucket[v] != b + 1) {
+                            inBucket[v] = b + 1;
+                            settled.add(v);
+                        }
+                    }
+                }
+                if (batch.size == 0) {
+                    break;
+                }
+                buckets = distribute(relax(batch, true, dist, pool), dist, buckets);
+            }
+            buckets = distribute(relax(settled, false, dist, pool), dist, buckets);
+        }
+
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = dist.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Relax the light edges (if light) or the heavy edges of the vertices of batch, in parallel
+     * on pool if batch is large, and return the vertices whose distances were lowered (some
+     * perhaps more than once).
+     */
+    private Bag relax(Bag batch, boolean light, AtomicIntegerArray dist, ForkJoinPool pool) {
+        if (batch.size < PARALLEL_THRESHOLD) {
+            Bag lowered = new Bag();
+            relax(batch, 0, batch.size, light, dist, lowered);
+            return lowered;
+        }
+        int chunks = (batch.size + CHUNK - 1) / CHUNK;
+        List<Bag> parts = pool.submit(() -> IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> {
+                    Bag lowered = new Bag();
+                    relax(batch, c * CHUNK, Math.min(batch.size, (c + 1) * CHUNK), light, dist,
+                            lowered);
+                    return lowered;
+                }).toList()).join();
+        Bag all = new Bag();
+        for (Bag p : parts) {
+            all.addAll(p);
+        }
+        return all;
+    }
+
+    /**
+     * Effect: relax the light or heavy edges of batch.items[from .. until - 1], adding each
+     * vertex whose distance is lowered to lowered.
+     */
+    private void relax(Bag batch, int from, int until, boolean light, AtomicIntegerArray dist,
+            Bag lowered) {
+        for (int k = from; k < until; k++) {
+            int v = batch.items[k];
+            int dv = dist.get(v);
+            int lo = light ? first[v] : lightEnd[v], hi = light ? lightEnd[v] : first[v + 1];
+            for (int e = lo; e < hi; e++) {
+                int u = to[e], d = dv + weight[e];
+                // Atomic minimum: retry only while d still improves on the current distance
+                for (int cur = dist.get(u); d < cur; cur = dist.get(u)) {
+                    if (dist.compareAndSet(u, cur, d)) {
+                        lowered.add(u);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add each vertex of lowered to the bucket of its current distance, growing buckets as
+     * needed, and return buckets. Buckets never filled are null.
+     */
+    private Bag[] distribute(Bag lowered, AtomicIntegerArray dist, Bag[] buckets) {
+        for (int k = 0; k < lowered.size; k++) {
+            int v = lowered.items[k];
+            int b = dist.get(v) / delta;
+            if (b >= buckets.length) {
+                buckets = Arrays.copyOf(buckets, Math.max(b + 1, 2 * buckets.length));
+            }
+            if (buckets[b] == null) {
+                buckets[b] = new Bag();
+            }
+            buckets[b].add(v);
+        }
+        return buckets;
+    }
+
+    /** A growable list of vertex indices. */
+    private static final class Bag {
+        int[] items = new int[16];
+        int size;
+
+        void add(int v) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, 2 * size);
+            }
+            items[size++] = v;
+        }
+
+        void addAll(Bag other) {
+            if (size + other.size > items.length) {
+                items = Arrays.copyOf(items, Math.max(2 * items.length, size + other.size));
+            }
+            System.arraycopy(other.items, 0, items, size, other.size);
+            size += other.size;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DeltaStepping[delta " + delta + ", " + graph.vertexCount() + " vertices, "
+                + to.length + " edges]";
+    }
+}
@@ -0,0 +1,22 @@
+package graph;
+
+/**
+ * An estimate of the distance from any vertex to one fixed target, which guides a
+ * point-to-point search toward the target (see ShortestPaths.pointToPoint()).
+ * <p>
+ * To keep the search exact, an estimate must never exceed the true distance and must be
+ * consistent: the estimate at u is at most the weight of an edge (u, v) plus the estimate at v.
+ *
+ * @param <V> the type of vertices
+ */
+@FunctionalInterface
+public interface Heuristic<V> {
+
+    /** Return a lower bound on the length of a shortest path from v to the target. */
+    double estimate(V v);
+
+    /** Return the heuristic that knows nothing, under which A* is Dijkstra's algorithm. */
+    static <V> Heuristic<V> none() {
+        return v -> 0;
+    }
+}
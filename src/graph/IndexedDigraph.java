@@ -0,0 +1,14 @@
+package graph;
+
+/** A weighted directed graph whose vertices are numbered, so that searches can keep their
+ * per-vertex state in arrays instead of maps.
+ * @param <V> the type of vertices
+ * @param <E> the type of edges
+ */
+public interface IndexedDigraph<V, E> extends WeightedDigraph<V, E> {
+    /** One more than the largest index of a vertex */
+    int vertexCount();
+    /** The index of a vertex, in 0 .. vertexCount() - 1. Distinct vertices have distinct
+     * indices. */
+    int index(V vertex);
+}
@@ -0,0 +1,147 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleBiFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Landmarks for goal-directed search (ALT: A*, landmarks and the triangle inequality). For each
+ * of a few landmark vertices L this holds the distance from L to every vertex, from which
+ * |d(L, t) - d(L, v)| is a lower bound on the distance from any v to any t. The largest such
+ * bound over the landmarks is a Heuristic for ShortestPaths.pointToPoint() that, with
+ * landmarks spread around the border of the graph, is much tighter than a geometric one
+ * when the paths wind.
+ * <p>
+ * Each landmark costs one int per vertex. The distances are computed in parallel, one search
+ * per landmark, each thread searching in its own SearchWorkspace.
+ * <p>
+ * Requires: the graph is symmetric (every edge has a reverse edge of the same weight), and
+ * its weights are whole numbers. Immutable, so any number of threads may share one.
+ *
+ * @param <V> the type of vertices
+ * @param <E> the type of edges
+ */
+public final class Landmarks<V, E> {
+
+    /** The number of landmarks used when a caller has no better idea */
+    public static final int DEFAULT_COUNT = 8;
+
+    /** The distance stored for a vertex a landmark does not reach */
+    private static final int UNREACHED = -1;
+
+    private final IndexedDigraph<V, E> graph;
+    private final List<V> landmarks;
+
+    /** distance[l][i]: the distance from landmark l to the vertex with index i, or UNREACHED */
+    private final int[][] distance;
+
+    /**
+     * Constructor: landmarks at the vertices of landmarks in graph, with their distances to
+     * every vertex computed in parallel.
+     */
+    public Landmarks(IndexedDigraph<V, E> graph, List<V> landmarks) {
+        this.graph = graph;
+        this.landmarks = List.copyOf(landmarks);
+        distance = IntStream.range(0, this.landmarks.size()).parallel()
+                .mapToObj(l -> distancesFrom(this.landmarks.get(l)))
+                .toArray(int[][]::new);
+    }
+
+    /** Return the distance from source to every vertex of graph, by index. */
+    private int[] distancesFrom(V source) {
+        SearchWorkspace ws = SearchWorkspace.forCurrentThread();
+        new ShortestPaths<>(graph, SearchStats.NONE, ws).singleSourceDistances(source);
+        int n = graph.vertexCount();
+        int[] d = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (ws.reached(i)) {
+                double x = ws.distance(i);
+                assert x == (int) x : "Landmark distances must be whole numbers";
+                d[i] = (int) x;
+            } else {
+                d[i] = UNREACHED;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Return landmarks for graph chosen among candidates by farthest-point selection: the
+     * first candidate, then repeatedly the candidate farthest by spread from those chosen so
+     * far, until count are chosen or the memory they need (one int per vertex each) would
+     * pass maxBytes. spread is any cheap measure of how far apart two candidates are, e.g.
+     * their distance on a map.
+     * Requires: count >= 0, and spread is symmetric and nonnegative.
+     */
+    public static <V, E> Landmarks<V, E> select(IndexedDigraph<V, E> graph, List<V> candidates,
+            int count, long maxBytes, ToDoubleBiFunction<? super V, ? super V> spread) {
+        long fit = maxBytes / (4L * Math.max(1, graph.vertexCount()));
+        int k = (int) Math.min(Math.min(count, fit), candidates.size());
+        List<V> chosen = new ArrayList<>();
+        // nearest[c]: the spread from candidate c to the nearest landmark chosen so far
+        double[] nearest = new double[candidates.size()];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        int next = 0;
+        while (chosen.size() < k) {
+            V l = candidates.get(next);
+            chosen.add(l);
+            next = -1;
+            for (int c = 0; c < candidates.size(); c++) {
+                nearest[c] = Math.min(nearest[c], spread.applyAsDouble(l, candidates.get(c)));
+                if (next < 0 || nearest[c] > nearest[next]) {
+                    next = c;
+                }
+            }
+        }
+        return new Landmarks<>(graph, chosen);
+    }
+
+    /** Return the landmarks, in the order they were chosen. */
+    public List<V> landmarks() {
+        return landmarks;
+    }
+
+    /** Return the memory held by the distance arrays (bytes). */
+    public long bytes() {
+        return 4L * landmarks.size() * graph.vertexCount();
+    }
+
+    /**
+     * Return the distance from landmark l (an index into landmarks()) to v, or -1 if l does
+     * not reach v.
+     */
+    public int distance(int l, V v) {
+        return distance[l][graph.index(v)];
+    }
+
+    /**
+     * Return the heuristic toward target: the largest triangle-inequality bound
+     * |d(L, target) - d(L, v)| over the landmarks L that reach both.
+     */
+    public Heuristic<V> toward(V target) {
+        int t = graph.index(target);
+        int[] toTarget = new int[distance.length];
+        for (int l = 0; l < distance.length; l++) {
+            toTarget[l] = distance[l][t];
+        }
+        return v -> {
+            int i = graph.index(v);
+            int best = 0;
+            for (int l = 0; l < distance.length; l++) {
+                int dv = distance[l][i], dt = toTarget[l];
+                if (dv != UNREACHED && dt != UNREACHED) {
+                    best = Math.max(best, Math.abs(dt - dv));
+                }
+            }
+            return best;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "Landmarks[" + landmarks.size() + " of " + graph.vertexCount() + " vertices, "
+                + bytes() / 1024 + " KB]";
+    }
+}
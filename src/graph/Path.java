@@ -0,0 +1,129 @@
+package graph;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.UnaryOperator;
+
+/**
+ * A best path found by a shortest-path search, as the sequence of its edges. Its length and
+ * number of edges are known without looking at the edges. The edges themselves are found by
+ * walking the search's parent pointers back from the last edge into one array of exactly the
+ * right size, either when the path is created or, for a path of an immutable ShortestPathTree,
+ * only when they are first asked for.
+ * <p>
+ * Immutable, apart from that lazy filling, which is safe to race.
+ */
+public final class Path<Edge> implements Iterable<Edge> {
+
+    private final double length;
+    private final int hops;
+
+    /** The last edge (null if there are none), and the edge before a given one on the path */
+    private final Edge last;
+    private final UnaryOperator<Edge> previous;
+
+    /** The edges in order, once they have been walked; else null */
+    private volatile Object[] edges;
+
+    /**
+     * Creates: the path of length length with hops edges, the last of which is last and each
+     * of which is preceded by previous.apply() of it. The edges are walked now unless lazy,
+     * which requires that previous keep returning the same edges.
+     */
+    Path(double length, int hops, Edge last, UnaryOperator<Edge> previous, boolean lazy) {
+        this.length = length;
+        this.hops = hops;
+        this.last = last;
+        this.previous = previous;
+        if (!lazy) {
+            edges = walk();
+        }
+    }
+
+    /** Returns: the edges of the path in order, walked back from last. */
+    private Object[] walk() {
+        Object[] a = new Object[hops];
+        Edge e = last;
+        for (int i = hops - 1; i >= 0; i--) {
+            a[i] = e;
+            e = previous.apply(e);
+        }
+        return a;
+    }
+
+    /** Returns: the edges of the path in order, walking them on the first call. */
+    private Object[] edges() {
+        Object[] a = edges;
+        if (a == null) {
+            a = walk();
+            edges = a;
+        }
+        return a;
+    }
+
+    /** Returns: the total weight of the edges of the path. */
+    public double length() {
+        return length;
+    }
+
+    /** Returns: the number of edges of the path. */
+    public int hops() {
+        return hops;
+    }
+
+    /** Returns: whether the path has no edges, i.e. goes from the source to itself. */
+    public boolean isEmpty() {
+        return hops == 0;
+    }
+
+    /** Returns: edge number i of the path, counting from 0. Requires: 0 <= i < hops(). */
+    @SuppressWarnings("unchecked")
+    public Edge get(int i) {
+        return (Edge) edges()[i];
+    }
+
+    /** Returns: an iterator over the edges of the path, from the source on. */
+    @Override
+    public Iterator<Edge> iterator() {
+        Object[] a = edges();
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < a.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Edge next() {
+                if (next >= a.length) {
+                    throw new NoSuchElementException();
+                }
+                return (Edge) a[next++];
+            }
+        };
+    }
+
+    /** Returns: an unmodifiable list view of the edges of the path. */
+    public List<Edge> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Edge get(int i) {
+                return Path.this.get(i);
+            }
+
+            @Override
+            public int size() {
+                return hops;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "Path[" + hops + " edges, length " + length + "]";
+    }
+}
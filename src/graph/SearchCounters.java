@@ -0,0 +1,131 @@
+package graph;
+
+/**
+ * Search statistics that count the work done by each ShortestPaths run and aggregate it across
+ * runs. The counts can be read directly or exported as JSON or CSV.
+ * <p>
+ * An instance is not thread-safe; use one per thread or per ShortestPaths object.
+ */
+public class SearchCounters implements SearchStats {
+
+    /**
+     * The work done by one or more runs: vertices settled, edges relaxed, decrease-key
+     * operations, the largest frontier seen, and elapsed time in nanoseconds.
+     */
+    public record Counts(long settled, long relaxed, long decreaseKeys, int peakFrontier,
+                         long nanos) {
+
+        /** Return these counts followed by other's, as if done in a single run. */
+        Counts plus(Counts other) {
+            return new Counts(settled + other.settled, relaxed + other.relaxed,
+                    decreaseKeys + other.decreaseKeys,
+                    Math.max(peakFrontier, other.peakFrontier), nanos + other.nanos);
+        }
+    }
+
+    /** The header line of toCsv() */
+    public static final String CSV_HEADER =
+            "scope,runs,settled,relaxed,decreaseKeys,peakFrontier,nanos";
+
+    /** Counts for no work at all */
+    private static final Counts ZERO = new Counts(0, 0, 0, 0, 0);
+
+    /** Counters for the run in progress */
+    private long settled, relaxed, decreaseKeys, start;
+    private int peakFrontier;
+
+    /** Number of finished runs */
+    private int runs;
+
+    /** Counts of the last finished run and of all finished runs */
+    private Counts lastRun = ZERO, total = ZERO;
+
+    @Override
+    public void runStarted() {
+        settled = 0;
+        relaxed = 0;
+        decreaseKeys = 0;
+        peakFrontier = 0;
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void vertexSettled() {
+        settled++;
+    }
+
+    @Override
+    public void edgeRelaxed() {
+        relaxed++;
+    }
+
+    @Override
+    public void decreaseKey() {
+        decreaseKeys++;
+    }
+
+    @Override
+    public void frontierSize(int size) {
+        if (size > peakFrontier) {
+            peakFrontier = size;
+        }
+    }
+
+    @Override
+    public void runFinished() {
+        lastRun = new Counts(settled, relaxed, decreaseKeys, peakFrontier,
+                System.nanoTime() - start);
+        total = total.plus(lastRun);
+        runs++;
+    }
+
+    /** Return the number of finished runs. */
+    public int runs() {
+        return runs;
+    }
+
+    /** Return the counts of the last finished run. */
+    public Counts lastRun() {
+        return lastRun;
+    }
+
+    /** Return the counts summed over all finished runs; peakFrontier is the largest of any run. */
+    public Counts total() {
+        return total;
+    }
+
+    /** Effect: forget all finished runs. */
+    public void reset() {
+        runs = 0;
+        lastRun = ZERO;
+        total = ZERO;
+    }
+
+    /** Return the statistics as a JSON object with fields runs, last and total. */
+    public String toJson() {
+        return "{\"runs\":" + runs + ",\"last\":" + json(lastRun) + ",\"total\":" + json(total)
+                + "}";
+    }
+
+    /** Return c as a JSON object. */
+    private static String json(Counts c) {
+        return "{\"settled\":" + c.settled + ",\"relaxed\":" + c.relaxed
+                + ",\"decreaseKeys\":" + c.decreaseKeys + ",\"peakFrontier\":" + c.peakFrontier
+                + ",\"nanos\":" + c.nanos + "}";
+    }
+
+    /**
+     * Return the statistics as CSV: CSV_HEADER followed by a "last" row for the last run and a
+     * "total" row for all runs, each line ending in a newline.
+     */
+    public String toCsv() {
+        return CSV_HEADER + "\n" + csv("last", runs == 0 ? 0 : 1, lastRun)
+                + csv("total", runs, total);
+    }
+
+    /** Return c as a CSV row for scope covering n runs. */
+    private static String csv(String scope, int n, Counts c) {
+        return scope + "," + n + "," + c.settled + "," + c.relaxed + "," + c.decreaseKeys + ","
+                + c.peakFrontier + "," + c.nanos + "\n";
+    }
+}
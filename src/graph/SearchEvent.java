@@ -0,0 +1,21 @@
+package graph;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight-recorder event for one single-source search done by a ShortestPaths object. */
+@Name("mcdiver.ShortestPaths")
+@Label("Shortest-Paths Search")
+@Category({"McDiver", "Graph"})
+@StackTrace(false)
+final class SearchEvent extends Event {
+
+    @Label("Source")
+    String source;
+
+    @Label("Vertices Settled")
+    int settled;
+}
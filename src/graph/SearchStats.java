@@ -0,0 +1,30 @@
+package graph;
+
+/**
+ * Receives the events of the searches done by a ShortestPaths object. All methods do nothing by
+ * default, so NONE costs nothing once the JIT has inlined its empty calls; SearchCounters is the
+ * implementation that actually counts.
+ */
+public interface SearchStats {
+
+    /** Statistics that are thrown away. */
+    SearchStats NONE = new SearchStats() {};
+
+    /** Effect: a search from a new source is starting. */
+    default void runStarted() {}
+
+    /** Effect: a vertex has been removed from the frontier with its final distance. */
+    default void vertexSettled() {}
+
+    /** Effect: an outgoing edge of a settled vertex has been examined. */
+    default void edgeRelaxed() {}
+
+    /** Effect: the priority of a vertex already on the frontier has been lowered. */
+    default void decreaseKey() {}
+
+    /** Effect: the frontier now holds size vertices. */
+    default void frontierSize(int size) {}
+
+    /** Effect: the current search has finished. */
+    default void runFinished() {}
+}
@@ -0,0 +1,208 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * The per-vertex storage of a search over an IndexedDigraph: tentative distances, best incoming
+ * edges, and an indexed binary heap for the frontier, ordered by a priority per vertex. Arrays
+ * grow to the largest graph searched and are then reused, and starting a new search takes
+ * constant time: a vertex's entries are valid only if its stamp equals the current epoch, so
+ * nothing is cleared.
+ * <p>
+ * Not thread-safe. A ShortestPaths object either owns a workspace or borrows the one of its
+ * thread from forCurrentThread(); in the latter case its results are valid only until the next
+ * search in that workspace.
+ */
+public final class SearchWorkspace {
+
+    /** The workspace of each thread */
+    private static final ThreadLocal<SearchWorkspace> LOCAL =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+
+    /** The current search; entries of vertex v belong to it iff stamp[v] == epoch */
+    private int epoch;
+    private int[] stamp = new int[0];
+
+    /** Tentative distance, best incoming edge, and the vertex itself, by index */
+    private double[] dist = new double[0];
+
+    /**
+     * Priority of each vertex on the frontier: its distance for Dijkstra's algorithm, plus the
+     * heuristic estimate of the rest of the way for A*
+     */
+    private double[] key = new double[0];
+    private Object[] parent = new Object[0];
+    private Object[] vertex = new Object[0];
+
+    /** Number of edges of the best path found to each vertex, by index */
+    private int[] hops = new int[0];
+
+    /**
+     * Order in which each vertex was added to the frontier. Ties in distance are broken by it,
+     * so that vertices are settled in the same order as with SlowPQueue.
+     */
+    private int[] order = new int[0];
+    private int added;
+
+    /** Binary min-heap of vertex indices, and the position of each vertex in it (-1 if none) */
+    private int[] heap = new int[0];
+    private int[] heapPos = new int[0];
+    private int heapSize;
+
+    /** Return the workspace of the calling thread. */
+    public static SearchWorkspace forCurrentThread() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Start a new search over vertices 0 .. n - 1, forgetting the previous one. Return the
+     * search's epoch, with which epoch() can later tell whether the workspace is still
+     * holding that search.
+     */
+    int start(int n) {
+        if (stamp.length < n) {
+            int size = Math.max(n, stamp.length + (stamp.length >> 1));
+            stamp = new int[size];
+            dist = new double[size];
+            key = new double[size];
+            parent = new Object[size];
+            vertex = new Object[size];
+            hops = new int[size];
+            order = new int[size];
+            heap = new int[size];
+            heapPos = new int[size];
+            // The epoch goes on counting, so that the epoch of an earlier search does not come
+            // back; the new stamps are all 0, which no epoch equals
+        }
+        if (++epoch == 0) {
+            // Wrapped around: old stamps could be taken for current ones
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+        added = 0;
+        heapSize = 0;
+        return epoch;
+    }
+
+    /** Return the epoch of the current search. */
+    int epoch() {
+        return epoch;
+    }
+
+    /** Return whether vertex i has been reached by the current search. */
+    boolean reached(int i) {
+        return stamp[i] == epoch;
+    }
+
+    /** Return the tentative distance of i. Requires: reached(i). */
+    double distance(int i) {
+        return dist[i];
+    }
+
+    /** Return the best incoming edge of i, or null for the source. Requires: reached(i). */
+    Object parent(int i) {
+        return parent[i];
+    }
+
+    /** Return the number of edges of the best path to i. Requires: reached(i). */
+    int hops(int i) {
+        return hops[i];
+    }
+
+    /** Return the vertex with index i. Requires: reached(i). */
+    Object vertex(int i) {
+        return vertex[i];
+    }
+
+    /**
+     * Effect: record that v, with index i, is first reached at distance d through edge e (null
+     * for the source) on a path of h edges, and add it to the frontier with priority k.
+     */
+    void reach(int i, Object v, double d, double k, Object e, int h) {
+        stamp[i] = epoch;
+        dist[i] = d;
+        key[i] = k;
+        parent[i] = e;
+        hops[i] = h;
+        vertex[i] = v;
+        order[i] = added++;
+        heap[heapSize] = i;
+        heapPos[i] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    /**
+     * Effect: lower the distance of i, which is on the frontier, to d and its priority to k,
+     * reached through e on a path of h edges.
+     */
+    void improve(int i, double d, double k, Object e, int h) {
+        dist[i] = d;
+        key[i] = k;
+        parent[i] = e;
+        hops[i] = h;
+        siftUp(heapPos[i]);
+    }
+
+    /** Return whether i, which has been reached, is still on the frontier. */
+    boolean onFrontier(int i) {
+        return heapPos[i] >= 0;
+    }
+
+    /** Return the number of vertices on the frontier. */
+    int frontierSize() {
+        return heapSize;
+    }
+
+    /** Remove and return the frontier vertex of least distance. Requires: frontierSize() > 0. */
+    int extractMin() {
+        int min = heap[0];
+        heapPos[min] = -1;
+        if (--heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /** Return whether vertex i comes before vertex j in the frontier. */
+    private boolean before(int i, int j) {
+        return key[i] < key[j] || key[i] == key[j] && order[i] < order[j];
+    }
+
+    private void siftUp(int k) {
+        int v = heap[k];
+        while (k > 0) {
+            int p = (k - 1) >>> 1;
+            if (!before(v, heap[p])) {
+                break;
+            }
+            heap[k] = heap[p];
+            heapPos[heap[k]] = k;
+            k = p;
+        }
+        heap[k] = v;
+        heapPos[v] = k;
+    }
+
+    private void siftDown(int k) {
+        int v = heap[k];
+        while (true) {
+            int c = 2 * k + 1;
+            if (c >= heapSize) {
+                break;
+            }
+            if (c + 1 < heapSize && before(heap[c + 1], heap[c])) {
+                c++;
+            }
+            if (!before(heap[c], v)) {
+                break;
+            }
+            heap[k] = heap[c];
+            heapPos[heap[k]] = k;
+            k = c;
+        }
+        heap[k] = v;
+        heapPos[v] = k;
+    }
+}
@@ -0,0 +1,130 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The shortest paths from one source vertex of a weighted directed graph to every vertex it
+ * reaches: the distance to each vertex and the last edge of a best path to it. Obtained from
+ * ShortestPaths.tree() or ShortestPaths.trees().
+ * <p>
+ * Immutable, so any number of threads may query one tree at once, and a tree stays valid
+ * whatever searches are done afterwards. For an IndexedDigraph the tree is two arrays indexed
+ * by vertex; otherwise it is two maps.
+ */
+public final class ShortestPathTree<Vertex, Edge> {
+
+    private final WeightedDigraph<Vertex, Edge> graph;
+    private final Vertex source;
+
+    /**
+     * For an IndexedDigraph: the distance to each vertex (infinite if unreached) and the
+     * incoming edge of its best path (null for the source and unreached vertices); else null.
+     */
+    private final IndexedDigraph<Vertex, Edge> indexed;
+    private final double[] dist;
+    private final Object[] parent;
+
+    /** For an IndexedDigraph: the number of edges of the best path to each vertex; else null */
+    private final int[] hops;
+
+    /** For other graphs: the same, by vertex; else null */
+    private final Map<Vertex, Double> distances;
+    private final Map<Vertex, Edge> bestEdges;
+
+    /**
+     * Creates: the tree of the search from source over indexed that workspace holds.
+     */
+    ShortestPathTree(IndexedDigraph<Vertex, Edge> indexed, Vertex source,
+            SearchWorkspace workspace) {
+        this.graph = indexed;
+        this.indexed = indexed;
+        this.source = source;
+        int n = indexed.vertexCount();
+        dist = new double[n];
+        parent = new Object[n];
+        hops = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (workspace.reached(i)) {
+                dist[i] = workspace.distance(i);
+                parent[i] = workspace.parent(i);
+                hops[i] = workspace.hops(i);
+            } else {
+                dist[i] = Double.POSITIVE_INFINITY;
+            }
+        }
+        distances = null;
+        bestEdges = null;
+    }
+
+    /**
+     * Creates: the tree from source over graph given by the distances and best incoming edges
+     * of the vertices reached, which are copied.
+     */
+    ShortestPathTree(WeightedDigraph<Vertex, Edge> graph, Vertex source,
+            Map<Vertex, Double> distances, Map<Vertex, Edge> bestEdges) {
+        this.graph = graph;
+        this.indexed = null;
+        this.source = source;
+        dist = null;
+        parent = null;
+        hops = null;
+        this.distances = Collections.unmodifiableMap(new HashMap<>(distances));
+        this.bestEdges = Collections.unmodifiableMap(new HashMap<>(bestEdges));
+    }
+
+    /** Returns: the source vertex of the tree. */
+    public Vertex source() {
+        return source;
+    }
+
+    /** Returns: whether there is a path from the source to v. */
+    public boolean reaches(Vertex v) {
+        return indexed != null ? dist[indexed.index(v)] != Double.POSITIVE_INFINITY
+                : distances.containsKey(v);
+    }
+
+    /**
+     * Returns: the distance from the source vertex to v. Requires: v is reachable from the
+     * source.
+     */
+    public double getDistance(Vertex v) {
+        assert reaches(v) : "v not reachable from source";
+        return indexed != null ? dist[indexed.index(v)] : distances.get(v);
+    }
+
+    /**
+     * Returns: a new list of the edges of a best path from the source vertex to target.
+     * Requires: target is reachable from the source.
+     */
+    public List<Edge> bestPath(Vertex target) {
+        return new ArrayList<>(path(target).asList());
+    }
+
+    /**
+     * Returns: a best path from the source vertex to target, whose edges are walked from the
+     * tree only if they are asked for. Requires: target is reachable from the source.
+     */
+    public Path<Edge> path(Vertex target) {
+        assert reaches(target) : "target not reachable from source";
+        int n = 0;
+        if (indexed != null) {
+            n = hops[indexed.index(target)];
+        } else {
+            for (Edge e = parentOf(target); e != null; e = parentOf(graph.source(e))) {
+                n++;
+            }
+        }
+        return new Path<>(getDistance(target), n, parentOf(target),
+                e -> parentOf(graph.source(e)), true);
+    }
+
+    /** Returns: the incoming edge of the best path to v, or null if v is the source. */
+    @SuppressWarnings("unchecked")
+    private Edge parentOf(Vertex v) {
+        return indexed != null ? (Edge) parent[indexed.index(v)] : bestEdges.get(v);
+    }
+}
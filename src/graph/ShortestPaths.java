@@ -15,6 +15,13 @@ import java.util.Map;
  * <p>
  * Types Vertex and Edge are parameters, so their operations are supplied by a model object supplied
  * to the constructor.
+ * <p>
+ * If the model is an IndexedDigraph, searches keep their state in a SearchWorkspace instead of
+ * maps, so that repeating searches with the same object allocates nothing, and pointToPoint()
+ * can steer a search toward its target with a Heuristic.
+ * <p>
+ * The results of a search are overwritten by the next one. To keep them, or to share them
+ * between threads, use tree() or trees(), which return immutable ShortestPathTrees.
  */
 public class ShortestPaths<Vertex, Edge> {
 
@@ -23,6 +30,11 @@ public class ShortestPaths<Vertex, Edge> {
      */
     private final WeightedDigraph<Vertex, Edge> graph;
 
+    /**
+     * Where the work done by each search is reported.
+     */
+    private final SearchStats stats;
+
     /**
      * The distance to each vertex from the source.
      */
@@ -33,13 +45,56 @@ public class ShortestPaths<Vertex, Edge> {
      */
     private Map<Vertex, Edge> bestEdges;
 
+    /**
+     * The graph as an IndexedDigraph, or null if it is not one.
+     */
+    private final IndexedDigraph<Vertex, Edge> indexed;
+
+    /**
+     * Where searches of an IndexedDigraph keep their state (created by the first search if
+     * not given), and the epoch of the last search in it; 0 if there has been none.
+     */
+    private SearchWorkspace workspace;
+    private int epoch;
+
     /**
      * Creates: a single-source shortest-path finder for a weighted graph.
      *
      * @param graph The model that supplies all graph operations.
      */
     public ShortestPaths(WeightedDigraph<Vertex, Edge> graph) {
+        this(graph, SearchStats.NONE);
+    }
+
+    /**
+     * Creates: a single-source shortest-path finder for a weighted graph that reports the work
+     * done by each search to stats.
+     *
+     * @param graph The model that supplies all graph operations.
+     * @param stats Receives the search events, e.g. a SearchCounters.
+     */
+    public ShortestPaths(WeightedDigraph<Vertex, Edge> graph, SearchStats stats) {
+        this(graph, stats, null);
+    }
+
+    /**
+     * Creates: a single-source shortest-path finder for a weighted graph that reports the work
+     * done by each search to stats and, if graph is an IndexedDigraph, searches in workspace
+     * (e.g. SearchWorkspace.forCurrentThread()). Distances and paths are then available only
+     * until another search is done in workspace.
+     *
+     * @param graph The model that supplies all graph operations.
+     * @param stats Receives the search events, e.g. a SearchCounters.
+     * @param workspace Where searches keep their state; null for one of this object's own.
+     */
+    @SuppressWarnings("unchecked")
+    public ShortestPaths(WeightedDigraph<Vertex, Edge> graph, SearchStats stats,
+            SearchWorkspace workspace) {
         this.graph = graph;
+        this.stats = stats;
+        this.indexed = graph instanceof IndexedDigraph
+                ? (IndexedDigraph<Vertex, Edge>) graph : null;
+        this.workspace = workspace;
     }
 
     /**
@@ -47,33 +102,224 @@ public class ShortestPaths<Vertex, Edge> {
      * bestPath().
      */
     public void singleSourceDistances(Vertex source) {
+        search(source, null);
+    }
+
+    /**
+     * Effect: Computes the best paths that start at any of the vertices in starts, each at the
+     * distance it maps to (a vertex that is, say, partway along an edge from the real source).
+     * getDistance() then includes that starting distance, and bestPath() begins at whichever
+     * start the best path leaves from. Ties between starts favor the earlier in starts' order.
+     * Requires: starts is not empty and its distances are nonnegative.
+     */
+    public void multiSourceDistances(Map<Vertex, Double> starts) {
+        assert !starts.isEmpty() : "Need a start vertex";
+        search(null, starts);
+    }
+
+    /**
+     * Effect: Computes the best paths from source at distance 0 if starts is null, else from
+     * every vertex in starts at the distance it maps to.
+     */
+    private void search(Vertex source, Map<Vertex, Double> starts) {
+        if (indexed != null) {
+            indexedSearch(source, starts, -1, null);
+            return;
+        }
         // Implementation constraint: use Dijkstra's single-source shortest paths algorithm.
         PQueue<Vertex> frontier = new SlowPQueue<>();
         distances = new HashMap<>();
         bestEdges = new HashMap<>();
            // TODO: Complete computation of distances and best-path edges
-        // Enqueue start vertex (which is distance 0 from itself).
-        frontier.add(source, 0);
-        distances.put(source, 0.0);
-        bestEdges.put(source, null);
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        int settled = 0;
+        stats.runStarted();
+        if (starts == null) {
+            // Enqueue start vertex (which is distance 0 from itself).
+            frontier.add(source, 0);
+            distances.put(source, 0.0);
+            bestEdges.put(source, null);
+        } else {
+            for (Map.Entry<Vertex, Double> start : starts.entrySet()) {
+                Vertex v = start.getKey();
+                double d = start.getValue();
+                if (!distances.containsKey(v)) {
+                    frontier.add(v, d);
+                    distances.put(v, d);
+                    bestEdges.put(v, null);
+                } else if (d < distances.get(v)) {
+                    frontier.changePriority(v, d);
+                    distances.put(v, d);
+                }
+            }
+        }
+        stats.frontierSize(frontier.size());
 
         while (!frontier.isEmpty()) {
             Vertex v = frontier.extractMin();
+            settled++;
+            stats.vertexSettled();
 
             for (Edge e : graph.outgoingEdges(v)) {
+                stats.edgeRelaxed();
                 Vertex neighbor = graph.dest(e);
                 double distance = distances.get(v) + graph.weight(e);
                 if (!distances.containsKey(neighbor)) {
                     distances.put(neighbor, distance);
                     bestEdges.put(neighbor, e);
                     frontier.add(neighbor, distance);
+                    stats.frontierSize(frontier.size());
                 } else if (distance < distances.get(neighbor)) {
                     distances.put(neighbor, distance);
                     bestEdges.put(neighbor, e);
                     frontier.changePriority(neighbor, distance);
+                    stats.decreaseKey();
                 }
             }
         }
+        stats.runFinished();
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = String.valueOf(starts == null ? source : starts.keySet());
+            event.settled = settled;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns: the length of a shortest path from source to target, or infinity if there is
+     * none, found by an A* search that heuristic steers toward target, e.g.
+     * Landmarks.toward(target). The search stops as soon as target is settled, so afterward
+     * getDistance() and bestPath() may only be asked about target. On a graph that is not an
+     * IndexedDigraph, heuristic is ignored and all distances from source are computed.
+     * Requires: heuristic is a consistent lower bound on the distance to target.
+     */
+    public double pointToPoint(Vertex source, Vertex target, Heuristic<Vertex> heuristic) {
+        if (indexed == null) {
+            singleSourceDistances(source);
+            Double d = distances.get(target);
+            return d == null ? Double.POSITIVE_INFINITY : d;
+        }
+        int t = indexed.index(target);
+        indexedSearch(source, null, t, heuristic);
+        return workspace.reached(t) ? workspace.distance(t) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns: the shortest-path tree from source, which unlike this object's own results is
+     * immutable and stays valid after later searches. Also makes source the source vertex of
+     * getDistance() and bestPath(), as singleSourceDistances() does.
+     */
+    public ShortestPathTree<Vertex, Edge> tree(Vertex source) {
+        singleSourceDistances(source);
+        if (indexed != null) {
+            return new ShortestPathTree<>(indexed, source, workspace);
+        }
+        return new ShortestPathTree<>(graph, source, distances, bestEdges);
+    }
+
+    /**
+     * Returns: the shortest-path trees from each of sources, in the same order, computed in
+     * parallel, each thread searching in its own SearchWorkspace.
+     */
+    public static <V, E> List<ShortestPathTree<V, E>> trees(WeightedDigraph<V, E> graph,
+            List<V> sources) {
+        return sources.parallelStream()
+                .map(s -> new ShortestPaths<>(graph, SearchStats.NONE,
+                        SearchWorkspace.forCurrentThread()).tree(s))
+                .toList();
+    }
+
+    /**
+     * Effect: the same as search(), for an IndexedDigraph, in the workspace. Ties are broken
+     * as SlowPQueue breaks them, so the best paths are the same too. If heuristic is not null,
+     * the frontier is ordered by distance plus heuristic estimate instead, and the search
+     * stops once the vertex with index target is settled.
+     */
+    @SuppressWarnings("unchecked")
+    private void indexedSearch(Vertex source, Map<Vertex, Double> starts, int target,
+            Heuristic<Vertex> heuristic) {
+        if (workspace == null) {
+            workspace = new SearchWorkspace();
+        }
+        SearchWorkspace ws = workspace;
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        int settled = 0;
+        epoch = ws.start(indexed.vertexCount());
+        stats.runStarted();
+        if (starts == null) {
+            ws.reach(indexed.index(source), source, 0,
+                    heuristic == null ? 0 : heuristic.estimate(source), null, 0);
+        } else {
+            for (Map.Entry<Vertex, Double> start : starts.entrySet()) {
+                int i = indexed.index(start.getKey());
+                double d = start.getValue();
+                if (!ws.reached(i)) {
+                    ws.reach(i, start.getKey(), d, d, null, 0);
+                } else if (d < ws.distance(i)) {
+                    ws.improve(i, d, d, null, 0);
+                }
+            }
+        }
+        stats.frontierSize(ws.frontierSize());
+
+        while (ws.frontierSize() > 0) {
+            int vi = ws.extractMin();
+            Vertex v = (Vertex) ws.vertex(vi);
+            double dv = ws.distance(vi);
+            int hv = ws.hops(vi) + 1;
+            settled++;
+            stats.vertexSettled();
+            if (vi == target) {
+                break;
+            }
+
+            for (Edge e : graph.outgoingEdges(v)) {
+                stats.edgeRelaxed();
+                Vertex neighbor = graph.dest(e);
+                int ni = indexed.index(neighbor);
+                double distance = dv + graph.weight(e);
+                if (!ws.reached(ni)) {
+                    ws.reach(ni, neighbor, distance,
+                            heuristic == null ? distance
+                                    : distance + heuristic.estimate(neighbor), e, hv);
+                    stats.frontierSize(ws.frontierSize());
+                } else if (distance < ws.distance(ni) && ws.onFrontier(ni)) {
+                    // A consistent heuristic never shortens the path to a settled vertex
+                    ws.improve(ni, distance, distance + (heuristic == null ? 0
+                            : heuristic.estimate(neighbor)), e, hv);
+                    stats.decreaseKey();
+                }
+            }
+        }
+        stats.runFinished();
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = String.valueOf(starts == null ? source : starts.keySet());
+            event.settled = settled;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns: the index of v in the workspace holding this object's last search.
+     * Throws: IllegalStateException if there has been no search, if another search has since
+     * been done in the workspace, or if v was not reached.
+     */
+    private int indexOf(Vertex v) {
+        if (epoch == 0) {
+            throw new IllegalStateException("Must run singleSourceDistances() first");
+        }
+        if (workspace.epoch() != epoch) {
+            throw new IllegalStateException("Workspace reused by another search");
+        }
+        int i = indexed.index(v);
+        if (!workspace.reached(i)) {
+            throw new IllegalStateException(v + " not reachable from source");
+        }
+        return i;
     }
 
     /**
@@ -81,6 +327,9 @@ public class ShortestPaths<Vertex, Edge> {
      * been computed from a source vertex, and vertex v is reachable from that vertex.
      */
     public double getDistance(Vertex v) {
+        if (indexed != null) {
+            return workspace.distance(indexOf(v));
+        }
         assert !distances.isEmpty() : "Must run singleSourceDistances() first";
         Double d = distances.get(v);
         assert d != null : "v not reachable from source";
@@ -93,17 +342,32 @@ public class ShortestPaths<Vertex, Edge> {
      * compute best paths, and vertex target is reachable from that source.
      */
     public List<Edge> bestPath(Vertex target) {
+        return new LinkedList<>(path(target).asList());
+    }
+
+    /**
+     * Returns: the best path from the source vertex to target, as a Path, whose length and
+     * number of edges cost nothing to ask for. Its edges are copied into one array, so it stays
+     * valid after later searches. Callers that need only the length should use getDistance().
+     * Requires: singleSourceDistances() has already been used to compute best paths, and vertex
+     * target is reachable from that source.
+     */
+    @SuppressWarnings("unchecked")
+    public Path<Edge> path(Vertex target) {
+        if (indexed != null) {
+            int i = indexOf(target);
+            return new Path<>(workspace.distance(i), workspace.hops(i),
+                    (Edge) workspace.parent(i),
+                    e -> (Edge) workspace.parent(indexed.index(graph.source(e))), false);
+        }
         assert !bestEdges.isEmpty() : "Must run singleSourceDistances() first";
-        LinkedList<Edge> path = new LinkedList<>();
-        Vertex v = target;
-        while (true) {
-            Edge e = bestEdges.get(v);
-            if (e == null) {
-                break; // must be the source vertex (assuming target is reachable)
-            }
-            path.addFirst(e);
-            v = graph.source(e);
+        assert distances.containsKey(target) : "target not reachable from source";
+        int hops = 0;
+        // the source vertex has no best edge (assuming target is reachable)
+        for (Edge e = bestEdges.get(target); e != null; e = bestEdges.get(graph.source(e))) {
+            hops++;
         }
-        return path;
+        return new Path<>(distances.get(target), hops, bestEdges.get(target),
+                e -> bestEdges.get(graph.source(e)), false);
     }
 }
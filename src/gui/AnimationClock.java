@@ -0,0 +1,55 @@
+package gui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.Timer;
+
+/**
+ * The single animation loop of a GUI. While anything is animating, one long-lived Swing timer
+ * ticks at GUI.FRAMES_PER_SECOND and advances every running animation to the current
+ * System.nanoTime(), so motion is paced by elapsed time rather than by counting timer events.
+ * The timer stops when nothing is animating and restarts when an animation is added.
+ * <p>
+ * All methods must be called on the event dispatch thread.
+ */
+class AnimationClock {
+
+    /** Something that changes over time. */
+    interface Animation {
+        /**
+         * Advance to time now (a System.nanoTime() reading). Return false once the animation
+         * has finished and should not be stepped again.
+         */
+        boolean step(long now);
+    }
+
+    /** The animations still running, in the order they were started */
+    private final List<Animation> running = new ArrayList<>();
+
+    /** The timer that drives every animation */
+    private final Timer timer;
+
+    /** Constructor: an idle clock. */
+    AnimationClock() {
+        timer = new Timer(1000 / GUI.FRAMES_PER_SECOND, e -> tick());
+        timer.setCoalesce(true);
+    }
+
+    /** Start running animation a; its first step happens on the next tick. */
+    void start(Animation a) {
+        running.add(a);
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    /** Step every running animation, dropping those that finish. */
+    private void tick() {
+        long now = System.nanoTime();
+        running.removeIf(a -> !a.step(now));
+        if (running.isEmpty()) {
+            timer.stop();
+        }
+    }
+}
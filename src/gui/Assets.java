@@ -0,0 +1,125 @@
+package gui;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+/**
+ * The process-wide cache of the images in res/. Each image is decoded once, converted to a format
+ * that is fast to draw on the screen, and shared by every GUI built afterwards. Sprite sheets are
+ * also cut into their frames once.
+ * <p>
+ * All methods are thread-safe.
+ */
+public final class Assets {
+
+    /** Every image used by the GUI */
+    private static final String[] ALL_IMAGES = {
+            "res/path.png", "res/wall.png", "res/ring2.png", "res/coins.png",
+            "res/manhole.png", "res/coinpersonSmall.png", "res/pizza.png",
+            "res/info_texture.png", "res/explorer_sprites.png"
+    };
+
+    /** Images, decoded or being decoded, by path */
+    private static final Map<String, CompletableFuture<BufferedImage>> images =
+            new ConcurrentHashMap<>();
+
+    /** Frames of sprite sheets, by path and frame size */
+    private static final Map<String, BufferedImage[][]> frames = new ConcurrentHashMap<>();
+
+    /** No objects. */
+    private Assets() {
+    }
+
+    /**
+     * Start decoding every image used by the GUI, in parallel, without waiting for them.
+     * Calling this at startup lets decoding overlap other work.
+     */
+    public static void preload() {
+        for (String path : ALL_IMAGES) {
+            load(path);
+        }
+    }
+
+    /** Return the future for the image at path, starting to decode it if necessary. */
+    private static CompletableFuture<BufferedImage> load(String path) {
+        return images.computeIfAbsent(path,
+                p -> CompletableFuture.supplyAsync(() -> decode(p)));
+    }
+
+    /**
+     * Return the image at path, decoding it if this has not been done yet. Throw an
+     * IllegalArgumentException if it cannot be read.
+     */
+    public static BufferedImage image(String path) {
+        try {
+            return load(path).join();
+        } catch (CompletionException e) {
+            throw new IllegalArgumentException("Can't find input file : " + e.getCause());
+        }
+    }
+
+    /**
+     * Return the frames of the sprite sheet at path, cut into width by height images:
+     * frames(...)[r][c] is the image in row r and column c of the sheet.
+     */
+    public static BufferedImage[][] frames(String path, int width, int height) {
+        return frames.computeIfAbsent(path + "@" + width + "x" + height, k -> {
+            BufferedImage sheet = image(path);
+            BufferedImage[][] result =
+                    new BufferedImage[sheet.getHeight() / height][sheet.getWidth() / width];
+            for (int r = 0; r < result.length; r++) {
+                for (int c = 0; c < result[r].length; c++) {
+                    result[r][c] = copy(sheet.getSubimage(c * width, r * height, width, height));
+                }
+            }
+            return result;
+        });
+    }
+
+    /** Read the image at path and convert it with copy(). */
+    private static BufferedImage decode(String path) {
+        try {
+            BufferedImage img = ImageIO.read(new File(path));
+            if (img == null) {
+                throw new IOException(path + " is not an image");
+            }
+            return copy(img);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Return a copy of img in its own raster, in the screen's native format if there is a
+     * screen.
+     */
+    private static BufferedImage copy(BufferedImage img) {
+        int transparency = img.getColorModel().getTransparency();
+        BufferedImage result;
+        if (GraphicsEnvironment.isHeadless()) {
+            result = new BufferedImage(img.getWidth(), img.getHeight(),
+                    transparency == Transparency.OPAQUE
+                            ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        } else {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            result = gc.createCompatibleImage(img.getWidth(), img.getHeight(), transparency);
+        }
+        Graphics2D g = result.createGraphics();
+        g.drawImage(img, 0, 0, null);
+        g.dispose();
+        return result;
+    }
+}
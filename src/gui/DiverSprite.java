@@ -1,6 +1,7 @@
 package gui;
 
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 
 import javax.swing.*;
@@ -29,10 +30,7 @@ public class DiverSprite extends JPanel {
     /**
      * Width and height (in pixels) of a single diver image on the spritesheet
      */
-    private final static int SPRITE_WIDTH = 29, SPRITE_HEIGHT = 36;
-
-    /** Length of an animation frame in ms */
-    private final static int FRAME_LENGTH_MS = 1000;
+    static final int SPRITE_WIDTH = 29, SPRITE_HEIGHT = 36;
 
     /**
      * SewerDiver's row and column indexes (updated only once move completes)
@@ -40,9 +38,10 @@ public class DiverSprite extends JPanel {
     private int row, col;
 
     /**
-     * x- and y- coordinates (pixels)
+     * Tiles moved per row and column by the move in progress, and the fraction of it done
      */
-    private int posX, posY;
+    private int moveRows, moveCols;
+    private double progress;
 
     /**
      * Direction the diver is currently facing?
@@ -52,7 +51,7 @@ public class DiverSprite extends JPanel {
     /**
      * Location of the spritesheet image
      */
-    private String spriteSheet = "res/explorer_sprites.png";
+    static final String SPRITE_SHEET = "res/explorer_sprites.png";
 
     /**
      * Constructor: an instance starting at (startRow, startCol), created for gui.
@@ -60,15 +59,13 @@ public class DiverSprite extends JPanel {
     public DiverSprite(int startRow, int startCol, GUI gui) {
         this.gui = gui;
         // Initialize fields
-        sprite = new Sprite(spriteSheet, SPRITE_WIDTH, SPRITE_HEIGHT, 3);
+        sprite = new Sprite(SPRITE_SHEET, SPRITE_WIDTH, SPRITE_HEIGHT, 3);
         if (sprite == null) {
-            throw new Error("Could not load sprite from " + spriteSheet);
+            throw new Error("Could not load sprite from " + SPRITE_SHEET);
         }
         // Initialize the starting location
         row = startRow;
         col = startCol;
-        posX = row * MazePanel.TILE_WIDTH;
-        posY = col * MazePanel.TILE_HEIGHT;
     }
 
     /**
@@ -122,35 +119,48 @@ public class DiverSprite extends JPanel {
      */
     public void moveTo(Node dst) {
         dir = getDirection(row, col, dst.getTile().row(), dst.getTile().column());
-        // Determine sequence of moves to add to queue to get to goal
-        int dx = (dst.getTile().column() - col) * MazePanel.TILE_WIDTH;
-        int dy = (dst.getTile().row() - row) * MazePanel.TILE_HEIGHT;
-        animateMove(dx, dy, () -> {
+        int dCols = dst.getTile().column() - col;
+        int dRows = dst.getTile().row() - row;
+        animateMove(dCols, dRows, () -> {
+            row = dst.getTile().row();
+            col = dst.getTile().column();
+        });
+    }
+
+    /**
+     * Put the diver on node dst at once, without animating the move.
+     */
+    public void jumpTo(Node dst) {
+        dir = getDirection(row, col, dst.getTile().row(), dst.getTile().column());
+        sprite.tick();
+        relocate(() -> {
             row = dst.getTile().row();
             col = dst.getTile().column();
         });
     }
 
-    /** Start animation of the diver to relative position (dx, dy), and
+    /** Start animation of the diver by dCols columns and dRows rows, and
      *  perform the specified action when the animation is complete.
+     *  The move takes GUI.FRAMES_PER_MOVE frames' worth of time and is
+     *  driven by the GUI's animation clock.
      */
-    void animateMove(int dx, int dy, Runnable action) {
-        int frames = GUI.FRAMES_PER_MOVE;
-        long t0 = System.currentTimeMillis(); // Get the next move to make
-        Timer timer = new Timer(1000 / GUI.FRAMES_PER_SECOND, event -> {
+    void animateMove(int dCols, int dRows, Runnable action) {
+        long t0 = System.nanoTime();
+        long duration = GUI.FRAMES_PER_MOVE * 1_000_000_000L / GUI.FRAMES_PER_SECOND;
+        gui.clock.start(now -> {
             sprite.tick();
-            long dt = System.currentTimeMillis() - t0; // Get the next move to make
-            int frame = (int) (dt * GUI.FRAMES_PER_SECOND / 1000);
-            if (frame <= frames) {
-                update(frames, frame, dx, dy);
-            } else {
-                update(frames, frames, dx, dy);
-                ((Timer) event.getSource()).stop();
-                action.run();
-                gui.finishAnimating();
+            long dt = now - t0;
+            if (dt < duration) {
+                update(dt, duration, dCols, dRows);
+                return true;
             }
+            relocate(() -> {
+                action.run();
+                progress = 0;
+            });
+            gui.finishAnimating();
+            return false;
         });
-        timer.start();
     }
 
     /**
@@ -160,22 +170,42 @@ public class DiverSprite extends JPanel {
     public void paintComponent(Graphics page) {
         super.paintComponent(page);
         if (gui.gameState.scramSucceeded()) {
-            page.drawImage(gui.mazePanel.exitEnd, MazePanel.TILE_WIDTH * col,
-                    MazePanel.TILE_HEIGHT * row,
-                    MazePanel.TILE_WIDTH, MazePanel.TILE_HEIGHT, null);
+            Rectangle r = gui.mazePanel.spriteBounds(row, col);
+            page.drawImage(gui.mazePanel.exitEnd, r.x, r.y, r.width, r.height, null);
             return;
         }
-        page.drawImage(sprite(), posX, posY, MazePanel.TILE_WIDTH, MazePanel.TILE_HEIGHT, null);
+        Rectangle r = spriteRect();
+        page.drawImage(sprite(), r.x, r.y, r.width, r.height, null);
+    }
+
+    /**
+     * Return the area of the panel the diver is drawn in at its current position.
+     */
+    private Rectangle spriteRect() {
+        return gui.mazePanel.spriteBounds(row + progress * moveRows, col + progress * moveCols);
+    }
+
+    /**
+     * Update the location of the diver to be fraction elapsed / duration of the way
+     * along a move by dCols columns and dRows rows, and repaint the area it left and
+     * the area it entered.
+     */
+    private void update(long elapsed, long duration, int dCols, int dRows) {
+        relocate(() -> {
+            moveCols = dCols;
+            moveRows = dRows;
+            progress = (double) elapsed / Math.max(1, duration);
+        });
     }
 
     /**
-     * Update the location of the diver as necessary.
+     * Run change, which moves the diver, and repaint the area it left and the area it entered.
      */
-    private void update(int framesPerMove, int framesIntoMove, int dx, int dy) {
-        // Make the move toward our destination
-        posX = MazePanel.TILE_WIDTH * col() + framesIntoMove * dx / framesPerMove;
-        posY = MazePanel.TILE_HEIGHT * row() + framesIntoMove * dy / framesPerMove;
-        repaint();
+    private void relocate(Runnable change) {
+        Rectangle dirty = spriteRect();
+        change.run();
+        dirty.add(spriteRect());
+        repaint(dirty);
     }
 
     /**
@@ -6,12 +6,18 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import javax.swing.JFrame;
 import javax.swing.JLayeredPane;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
+import datastructures.SpscQueue;
 import diver.McDiver;
+import game.CoinState;
 import game.GameState;
 import game.Node;
 import game.Sewers;
@@ -42,6 +48,12 @@ public class GUI extends JFrame {
      */
     public static int FRAMES_PER_SECOND = 60, FRAMES_PER_MOVE = 25;
 
+    /**
+     * Whether moves are applied to the display instantly instead of being animated. The maze
+     * is then redrawn once per frame with every move made since the previous frame.
+     */
+    public static volatile boolean INSTANT = false;
+
     /**
      * The panel for generating and drawing the maze
      */
@@ -61,6 +73,30 @@ public class GUI extends JFrame {
     /** Whether the GUI is doing an animation */
     protected boolean animating;
 
+    /** The loop that drives every animation of this GUI */
+    final AnimationClock clock = new AnimationClock();
+
+    /**
+     * Maximum number of moves the game may get ahead of the animation
+     */
+    public static final int MOVE_QUEUE_CAPACITY = 1024;
+
+    /**
+     * Moves and other updates queued by the game thread, played back in order on the event
+     * dispatch thread
+     */
+    private final SpscQueue<Consumer<GUI>> moves = new SpscQueue<>(MOVE_QUEUE_CAPACITY);
+
+    /**
+     * Number of queued updates that have not finished playing
+     */
+    private final AtomicInteger unplayed = new AtomicInteger();
+
+    /**
+     * Whether a call to playMoves() is already scheduled on the event dispatch thread
+     */
+    private final AtomicBoolean playScheduled = new AtomicBoolean();
+
     /**
      * Panel that provides more info on selected tile
      */
@@ -161,15 +197,93 @@ public class GUI extends JFrame {
     }
 
     /**
-     * Move the diver on the GUI to destination dest, and block
-     * until the diver has completed the move.
+     * Start moving the diver on the GUI to destination dest (or put it there at once in INSTANT
+     * mode), and return without waiting for the animation. Called from an update queued with
+     * offerMove(), which finishes only when the animation does, so the updates queued after it
+     * wait; the game thread waits for every move to play with awaitMovesPlayed().
+     * Must be called on the event dispatch thread.
      * Requires: dest is adjacent to the diver's current location
      */
     public void moveTo(Node dest) {
         mazePanel.setVisited(dest.getTile().row(), dest.getTile().column());
+        mazePanel.follow(dest.getTile().row(), dest.getTile().column());
+        if (INSTANT) {
+            diver.jumpTo(dest);
+            return;
+        }
+        startAnimating();
         diver.moveTo(dest);
     }
 
+    /**
+     * Queue update to be run on the event dispatch thread after every update queued before it
+     * has finished playing; an update that calls moveTo() finishes when the move's animation
+     * does. In INSTANT mode, updates are instead played in batches, once per frame. Return
+     * false, without queueing update, if MOVE_QUEUE_CAPACITY updates are already waiting.
+     * Must be called by only one thread, the game thread.
+     */
+    public boolean offerMove(Consumer<GUI> update) {
+        unplayed.incrementAndGet();
+        if (!moves.offer(update)) {
+            movePlayed();
+            return false;
+        }
+        if (playScheduled.compareAndSet(false, true)) {
+            if (INSTANT) {
+                // Wait for the next frame, so that every move made until then is drawn at once
+                SwingUtilities.invokeLater(() -> clock.start(now -> {
+                    playScheduled.set(false);
+                    playMoves();
+                    return false;
+                }));
+            } else {
+                SwingUtilities.invokeLater(() -> {
+                    playScheduled.set(false);
+                    playMoves();
+                });
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wait until every update queued by offerMove() has finished playing.
+     */
+    public synchronized void awaitMovesPlayed() throws InterruptedException {
+        while (unplayed.get() > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * Run queued updates until one starts an animation or the queue is empty.
+     * Must be called on the event dispatch thread.
+     */
+    private void playMoves() {
+        while (!isAnimating()) {
+            Consumer<GUI> update = moves.poll();
+            if (update == null) {
+                return;
+            }
+            update.accept(this);
+            if (!isAnimating()) {
+                movePlayed();
+            }
+        }
+    }
+
+    /**
+     * Record that a queued update has finished playing, waking up awaitMovesPlayed() if it was
+     * the last one.
+     */
+    private void movePlayed() {
+        if (unplayed.decrementAndGet() == 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
     /**
      * Update the bonus multiplier as displayed by the GUI by bonus
      */
@@ -188,6 +302,13 @@ public class GUI extends JFrame {
         tileSelect.repaint();
     }
 
+    /**
+     * Take the coins on node n in the game being shown, and redraw its tile.
+     */
+    public void takeCoins(Node n) {
+        mazePanel.takeCoins(n);
+    }
+
     /**
      * Update the steps remaining as displayed on the GUI to stepsLeft.
      */
@@ -196,10 +317,11 @@ public class GUI extends JFrame {
     }
 
     /**
-     * What is the specification?
+     * Show sewer system c, with the coins taken as recorded in coins, and numStepsToGo steps
+     * left. coins then belongs to the GUI, which updates it as takeCoins() is called.
      */
-    public void updateSewer(Sewers c, int numStepsToGo) {
-        mazePanel.setSewer(c);
+    public void updateSewer(Sewers c, CoinState coins, int numStepsToGo) {
+        mazePanel.setSewer(c, coins);
         options.updateMaxStepsLeft(numStepsToGo);
         updateStepsToGo(numStepsToGo);
         tileSelect.repaint();
@@ -226,6 +348,13 @@ public class GUI extends JFrame {
         return mazePanel.getCoinsIcon(n);
     }
 
+    /**
+     * Return the value of the coins on node n in the game being shown.
+     */
+    public int coinsOn(Node n) {
+        return mazePanel.coinsOn(n);
+    }
+
     /**
      * Select node n on the GUI.<br> This displays information on that node's panel on the screen.
      */
@@ -246,10 +375,16 @@ public class GUI extends JFrame {
     public synchronized boolean isAnimating() {
         return animating;
     }
-    public synchronized void finishAnimating() {
-        animating = false;
-
-           // TODO: support concurrency better
-        notifyAll();
+    /**
+     * Record that the current animation has finished, and continue with the next queued update.
+     * Must be called on the event dispatch thread.
+     */
+    public void finishAnimating() {
+        synchronized (this) {
+            animating = false;
+            notifyAll();
+        }
+        movePlayed();
+        playMoves();
     }
 }
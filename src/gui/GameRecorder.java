@@ -0,0 +1,303 @@
+package gui;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+import game.GameListener;
+import game.Node;
+import game.Sewers;
+
+/**
+ * Records a game as it is played, as a directory of numbered PNG frames or as an animated GIF.
+ * <p>
+ * The game thread only takes a snapshot of the game for each frame. Frames are drawn by an
+ * OffscreenRenderer on a pool of worker threads; PNG frames are also encoded there, while GIF
+ * frames are appended in order by a single writer thread. If the workers fall behind, the game
+ * thread waits, so that at most a few frames per worker are held in memory.
+ * <p>
+ * Works headless. Call close() after the game to wait for every frame to be written.
+ */
+public final class GameRecorder implements GameListener, AutoCloseable {
+
+    /** The kinds of recording */
+    public enum Format {
+        /** One PNG file per frame, named frame-000000.png, frame-000001.png, ... */
+        PNG,
+        /** A single looping animated GIF */
+        GIF
+    }
+
+    /** Maximum number of frames each worker may have waiting to be drawn or written */
+    private static final int FRAMES_IN_FLIGHT_PER_WORKER = 2;
+
+    private final Path out;
+    private final Format format;
+    private final OffscreenRenderer renderer;
+
+    /** A frame is taken every movesPerFrame moves, and at the start and end of each phase */
+    private final int movesPerFrame;
+
+    /** Time each GIF frame is shown (hundredths of a second) */
+    private final int gifDelay;
+
+    private final ExecutorService workers, writer;
+
+    /** Frames that may still be taken before one must finish */
+    private final Semaphore inFlight;
+
+    /** Completes when every frame taken so far has been written */
+    private CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+
+    /** Where GIF frames are appended; null for PNG recordings */
+    private final ImageWriter gif;
+    private final ImageOutputStream gifOut;
+
+    /** State of the game, as seen through the listener calls */
+    private Sewers sewers;
+    private BitSet visited = new BitSet(), taken = new BitSet();
+    private boolean lit;
+    private Node at;
+    private String phase = "";
+    private int steps, coins, moves, frames;
+
+    /**
+     * Constructor: a recorder writing to out (a directory for PNG frames, created if needed, or
+     * a file for a GIF) in format format, drawing tiles tileSize pixels wide, taking a frame
+     * every movesPerFrame moves and showing GIF frames for frameMillis milliseconds each.
+     */
+    public GameRecorder(Path out, Format format, int tileSize, int movesPerFrame,
+            int frameMillis) throws IOException {
+        if (movesPerFrame <= 0) {
+            throw new IllegalArgumentException("moves per frame must be positive");
+        }
+        this.out = out;
+        this.format = format;
+        this.renderer = new OffscreenRenderer(tileSize);
+        this.movesPerFrame = movesPerFrame;
+        this.gifDelay = Math.max(1, frameMillis / 10);
+        int nWorkers = Runtime.getRuntime().availableProcessors();
+        workers = Executors.newFixedThreadPool(nWorkers, new RecorderThreadFactory("render"));
+        writer = Executors.newSingleThreadExecutor(new RecorderThreadFactory("write"));
+        inFlight = new Semaphore(FRAMES_IN_FLIGHT_PER_WORKER * nWorkers);
+        if (format == Format.GIF) {
+            Path parent = out.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.deleteIfExists(out);
+            gif = ImageIO.getImageWritersByFormatName("gif").next();
+            gifOut = ImageIO.createImageOutputStream(out.toFile());
+            gif.setOutput(gifOut);
+            gif.prepareWriteSequence(null);
+        } else {
+            Files.createDirectories(out);
+            gif = null;
+            gifOut = null;
+        }
+    }
+
+    /**
+     * Return a recorder writing to out with tiles 24 pixels wide, a frame per move, and GIF
+     * frames shown for 80 ms. The format is GIF if out ends in ".gif", else PNG.
+     */
+    public static GameRecorder to(Path out) throws IOException {
+        return new GameRecorder(out, formatOf(out), 24, 1, 80);
+    }
+
+    /** Return the format to() records to out in: GIF if out ends in ".gif", else PNG. */
+    static Format formatOf(Path out) {
+        return out.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gif")
+                ? Format.GIF : Format.PNG;
+    }
+
+    /** Names and daemonizes the recorder's threads. */
+    private static class RecorderThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        RecorderThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "recorder-" + name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    @Override
+    public void phaseStarted(String phase, Sewers sewers, Node start, int steps) {
+        this.phase = phase;
+        this.sewers = sewers;
+        this.steps = steps;
+        visited = new BitSet();
+        taken = new BitSet();
+        // The scram sewer is shown fully lit, as in the GUI
+        lit = phase.equals("scram");
+        at = start;
+        visited.set(index(start));
+        moves = 0;
+        takeFrame();
+    }
+
+    @Override
+    public void moved(Node to, int steps, int coins) {
+        at = to;
+        this.steps = steps;
+        this.coins = coins;
+        visited.set(index(to));
+        if (++moves % movesPerFrame == 0) {
+            takeFrame();
+        }
+    }
+
+    @Override
+    public void coinsTaken(Node n) {
+        taken.set(index(n));
+    }
+
+    @Override
+    public void phaseEnded(String phase, boolean succeeded, int score) {
+        if (moves % movesPerFrame != 0) {
+            takeFrame();
+        }
+    }
+
+    /** Return the index of n's tile in the BitSets of the current sewer. */
+    private int index(Node n) {
+        return n.getTile().row() * sewers.columnCount() + n.getTile().column();
+    }
+
+    /**
+     * Snapshot the game and hand the frame to the workers, first waiting for room if too many
+     * frames are in flight.
+     */
+    private void takeFrame() {
+        OffscreenRenderer.Scene scene = new OffscreenRenderer.Scene(sewers,
+                (BitSet) visited.clone(), (BitSet) taken.clone(), lit,
+                at.getTile().row(), at.getTile().column(),
+                String.format("%s  steps %d  coins %d", phase, steps, coins));
+        int frame = frames++;
+        inFlight.acquireUninterruptibly();
+        CompletableFuture<Void> done;
+        if (format == Format.PNG) {
+            done = CompletableFuture.runAsync(() -> writePng(renderer.render(scene), frame),
+                    workers);
+            written = written.thenCombine(done, (a, b) -> null);
+        } else {
+            CompletableFuture<BufferedImage> image =
+                    CompletableFuture.supplyAsync(() -> renderer.render(scene), workers);
+            done = written.thenCombineAsync(image, (a, img) -> {
+                appendGif(img, frame == 0);
+                return null;
+            }, writer);
+            written = done;
+        }
+        done.whenComplete((v, e) -> inFlight.release());
+    }
+
+    /** Write img as PNG frame number frame. */
+    private void writePng(BufferedImage img, int frame) {
+        try {
+            ImageIO.write(img, "png", out.resolve(String.format("frame-%06d.png", frame))
+                    .toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Append img to the GIF. first must be true for the first frame only. */
+    private void appendGif(BufferedImage img, boolean first) {
+        try {
+            IIOMetadata meta = gif.getDefaultImageMetadata(
+                    ImageTypeSpecifier.createFromRenderedImage(img), null);
+            String name = meta.getNativeMetadataFormatName();
+            IIOMetadataNode root = (IIOMetadataNode) meta.getAsTree(name);
+            IIOMetadataNode control = child(root, "GraphicControlExtension");
+            control.setAttribute("disposalMethod", "none");
+            control.setAttribute("userInputFlag", "FALSE");
+            control.setAttribute("transparentColorFlag", "FALSE");
+            control.setAttribute("delayTime", Integer.toString(gifDelay));
+            control.setAttribute("transparentColorIndex", "0");
+            if (first) {
+                // Loop forever
+                IIOMetadataNode app = new IIOMetadataNode("ApplicationExtension");
+                app.setAttribute("applicationID", "NETSCAPE");
+                app.setAttribute("authenticationCode", "2.0");
+                app.setUserObject(new byte[] {1, 0, 0});
+                child(root, "ApplicationExtensions").appendChild(app);
+            }
+            meta.setFromTree(name, root);
+            gif.writeToSequence(new IIOImage(img, null, meta), null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Return the child of node called name, adding it if there is none. */
+    private static IIOMetadataNode child(IIOMetadataNode node, String name) {
+        for (int i = 0; i < node.getLength(); i++) {
+            if (node.item(i).getNodeName().equals(name)) {
+                return (IIOMetadataNode) node.item(i);
+            }
+        }
+        IIOMetadataNode child = new IIOMetadataNode(name);
+        node.appendChild(child);
+        return child;
+    }
+
+    /** Return the number of frames taken so far. */
+    public int frames() {
+        return frames;
+    }
+
+    /**
+     * Wait for every frame to be written, finish the output and release the worker threads.
+     * Throw an UncheckedIOException if a frame could not be written.
+     */
+    @Override
+    public void close() {
+        try {
+            written.join();
+            if (gif != null) {
+                gif.endWriteSequence();
+                gifOut.close();
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException u) {
+                throw u;
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            workers.shutdown();
+            writer.shutdown();
+            if (gif != null) {
+                gif.dispose();
+            }
+        }
+    }
+}
@@ -2,15 +2,21 @@ package gui;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
+import java.awt.image.DataBufferInt;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
-import javax.imageio.ImageIO;
 import javax.swing.JPanel;
 
+import game.CoinState;
 import game.Node;
 import game.Sewers;
 import game.Tile;
@@ -18,6 +24,16 @@ import game.Tile;
 /**
  * An instance is responsible for drawing the underlying maze on the screen.<br> The MazePanel
  * should contain only static images that don't need to change <br> unless the screen is redrawn.
+ * <p>
+ * The panel is a viewport onto the sewer: the mouse wheel zooms, dragging pans, a double click
+ * fits the whole sewer in the panel, and the view can follow the diver. Only tiles inside the
+ * view are ever drawn.
+ * <p>
+ * Drawing is cached in two layers. The static layer (background, walls and floors) is drawn once
+ * per sewer and view. The frame layer adds darkness, the ring, coins and the entrance, and is
+ * updated only for tiles marked dirty since the last paint. When tiles are smaller than
+ * LOD_SCALE pixels, images are not drawn at all: each pixel of the frame is set straight to the
+ * colour of the tile under it.
  */
 public class MazePanel extends JPanel {
 
@@ -30,26 +46,68 @@ public class MazePanel extends JPanel {
     /**
      * Paths to ring image and the image representing a path
      */
-    private static final String RING_PATH = "res/ring2.png", PATH_PATH = "res/path.png";
+    static final String RING_PATH = "res/ring2.png", PATH_PATH = "res/path.png";
 
     /**
      * Paths to wall image and coin image
      */
-    private static final String WALL_PATH = "res/wall.png", COIN_PATH = "res/coins.png";
+    static final String WALL_PATH = "res/wall.png", COIN_PATH = "res/coins.png";
 
     /**
      * Paths to manhole and exit
      */
-    private static final String ENTRANCE_PATH = "res/manhole.png",
+    static final String ENTRANCE_PATH = "res/manhole.png",
             Final_EXIT_PATH = "res/coinpersonSmall.png";
-    private static final String TASTY_PATH = "res/pizza.png";
+    static final String TASTY_PATH = "res/pizza.png";
     private static final String BACKGROUND_PATH = "res/info_texture.png";
 
     /**
-     * The width and height (in pixels) of a tile on the grid
+     * The width and height (in pixels) of a tile on the grid at the current zoom, at least 1
      */
     public static int TILE_WIDTH, TILE_HEIGHT;
 
+    /**
+     * Tiles smaller than this many pixels are drawn as flat colours rather than images
+     */
+    private static final int LOD_SCALE = 4;
+
+    /**
+     * Largest zoom, in pixels per tile, and the factor by which one wheel notch zooms
+     */
+    private static final double MAX_SCALE = 128, ZOOM_STEP = 1.25;
+
+    /**
+     * Smallest size (in pixels) at which the diver is drawn, so it stays visible when zoomed out
+     */
+    private static final int MIN_SPRITE_SIZE = 8;
+
+    /**
+     * Fraction of the view at each edge that the diver may enter before the view is recentred
+     * on it
+     */
+    private static final double FOLLOW_MARGIN = 0.15;
+
+    /**
+     * Whether the view follows the diver
+     */
+    public static volatile boolean FOLLOW_DIVER = true;
+
+    /**
+     * Current zoom, in pixels per tile. A whole number whenever it is at least LOD_SCALE.
+     */
+    private double scale;
+
+    /**
+     * Position in the panel of the top-left corner of tile (0, 0)
+     */
+    private int originX, originY;
+
+    /**
+     * Whether the view is fitted to the panel, and so should be refitted when the panel is
+     * resized
+     */
+    private boolean fitted = true;
+
     /**
      * Images representing an area the diver can walk on and a wall
      */
@@ -84,6 +142,12 @@ public class MazePanel extends JPanel {
      */
     private Sewers sewers;
 
+    /**
+     * The coins taken from sewers in the game being shown, as of the move now shown. The GUI's
+     * own copy, updated only on the event dispatch thread as the moves play back
+     */
+    private CoinState coins;
+
     /**
      * Contains the nodes already visited
      */
@@ -92,14 +156,48 @@ public class MazePanel extends JPanel {
     /**
      * Darkness of path. Lower values means darker
      */
-    private static final float DARK_FACTOR = 0.3f;
+    static final float DARK_FACTOR = 0.3f;
 
     /**
      * Color to place over unvisited paths
      */
     private Color darkness;
-    private static final int COIN_SPRITES_PER_ROW = 7;
-    private static final int COIN_SPRITES_PER_COL = 2;
+
+    /**
+     * The static layer of the maze and the composed frame, both the size of the panel. Null if
+     * they must be rebuilt. staticLayer is not used at low zoom.
+     */
+    private BufferedImage staticLayer, frame;
+
+    /**
+     * Images scaled to iconSize pixels, by original image
+     */
+    private final Map<BufferedImage, BufferedImage> icons = new IdentityHashMap<>();
+    private int iconSize;
+
+    /**
+     * The pixels of frame when it is drawn at low zoom, else null
+     */
+    private int[] raster;
+
+    /**
+     * Colours standing in for the images at low zoom
+     */
+    private final int wallRgb, pathRgb, darkPathRgb, ringRgb, coinRgb, tastyRgb, entranceRgb,
+            exitRgb, backgroundRgb;
+
+    /**
+     * Tiles, indexed by row * columnCount + col, whose appearance may have changed since the
+     * frame was last composed
+     */
+    private final BitSet dirtyTiles = new BitSet();
+
+    /**
+     * Whether the entrance is currently drawn as the exit after a successful scram
+     */
+    private boolean exitShown = false;
+    static final int COIN_SPRITES_PER_ROW = 7;
+    static final int COIN_SPRITES_PER_COL = 2;
 
     /**
      * Create a new MazePanel of a given size.<br>
@@ -112,63 +210,281 @@ public class MazePanel extends JPanel {
     public MazePanel(Sewers sew, int screenWidth, int screenHeight, GUI gui) {
         this.gui = gui;
         sewers = sew;
+        coins = new CoinState(sew);
         visited = new boolean[sewers.rowCount()][sewers.columnCount()];
 
-        // Compute the dimensions of an individual tile
-        TILE_WIDTH = (int) (screenWidth * 1.0 / sewers.columnCount());
-        TILE_HEIGHT = (int) (screenHeight * 0.95 / sewers.rowCount());
-        // Force tiles to be square
-        TILE_WIDTH = Math.min(TILE_WIDTH, TILE_HEIGHT);
-        TILE_HEIGHT = Math.min(TILE_WIDTH, TILE_HEIGHT);
-
         // Load content
-        try {
-            path = ImageIO.read(new File(PATH_PATH));
-            wall = ImageIO.read(new File(WALL_PATH));
-            ring = ImageIO.read(new File(RING_PATH));
-            coinSheet = new Sprite(COIN_PATH, 32, 32, 1);
-            entrance = ImageIO.read(new File(ENTRANCE_PATH));
-            exitEnd = ImageIO.read(new File(Final_EXIT_PATH));
-            tasty = ImageIO.read(new File(TASTY_PATH));
-            background = ImageIO.read(new File(BACKGROUND_PATH));
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Can't find input file : " + e.toString());
-        }
+        path = Assets.image(PATH_PATH);
+        wall = Assets.image(WALL_PATH);
+        ring = Assets.image(RING_PATH);
+        coinSheet = new Sprite(COIN_PATH, 32, 32, 1);
+        entrance = Assets.image(ENTRANCE_PATH);
+        exitEnd = Assets.image(Final_EXIT_PATH);
+        tasty = Assets.image(TASTY_PATH);
+        background = Assets.image(BACKGROUND_PATH);
 
         // Create the dark path
         darkness = new Color(0, 0, 0, (int) (256 - 256 * DARK_FACTOR));
 
-        // Add listener for clicking tiles
-        addMouseListener(new MouseAdapter() {
+        wallRgb = averageRgb(wall);
+        pathRgb = averageRgb(path);
+        darkPathRgb = new Color(pathRgb).darker().darker().darker().getRGB();
+        ringRgb = averageRgb(ring);
+        coinRgb = averageRgb(coinSheet.getSprite(1, 0));
+        tastyRgb = averageRgb(tasty);
+        entranceRgb = averageRgb(entrance);
+        exitRgb = averageRgb(exitEnd);
+        backgroundRgb = averageRgb(background);
+
+        fitView(screenWidth, screenHeight);
+
+        // Clicking selects a tile, dragging pans, the wheel zooms and double-clicking fits
+        MouseAdapter mouse = new MouseAdapter() {
+            private int lastX, lastY;
+            private boolean dragged;
+
             @Override
             public void mousePressed(MouseEvent e) {
-                int row = e.getY() / TILE_HEIGHT;
-                int col = e.getX() / TILE_WIDTH;
-                if (row < sewers.rowCount() && col < sewers.columnCount()) {
+                lastX = e.getX();
+                lastY = e.getY();
+                dragged = false;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                panBy(e.getX() - lastX, e.getY() - lastY);
+                lastX = e.getX();
+                lastY = e.getY();
+                dragged = true;
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                int row = rowAt(e.getY());
+                int col = colAt(e.getX());
+                if (!dragged && 0 <= row && row < sewers.rowCount()
+                        && 0 <= col && col < sewers.columnCount()) {
                     gui.selectNode(sewers.nodeAt(row, col));
                 }
             }
-        });
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    fitView(getWidth(), getHeight());
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoomAt(e.getX(), e.getY(), Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()));
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
     }
 
     /**
-     * Set the sewers to c
+     * Return the average colour of the opaque pixels of img, as an RGB int.
      */
-    void setSewer(Sewers c) {
-        sewers = c;
+    private static int averageRgb(BufferedImage img) {
+        long r = 0, g = 0, b = 0, n = 0;
+        int step = Math.max(1, Math.min(img.getWidth(), img.getHeight()) / 16);
+        for (int y = 0; y < img.getHeight(); y += step) {
+            for (int x = 0; x < img.getWidth(); x += step) {
+                int argb = img.getRGB(x, y);
+                if ((argb >>> 24) >= 128) {
+                    r += (argb >> 16) & 0xff;
+                    g += (argb >> 8) & 0xff;
+                    b += argb & 0xff;
+                    n++;
+                }
+            }
+        }
+        if (n == 0) {
+            return 0;
+        }
+        return (int) (r / n) << 16 | (int) (g / n) << 8 | (int) (b / n);
+    }
+
+    /**
+     * Return the x-coordinate in this panel of the left edge of column col.
+     */
+    int tileX(int col) {
+        return originX + (int) Math.floor(col * scale);
+    }
+
+    /**
+     * Return the y-coordinate in this panel of the top edge of row row.
+     */
+    int tileY(int row) {
+        return originY + (int) Math.floor(row * scale);
+    }
+
+    /**
+     * Return the column under x-coordinate x of this panel. It may lie outside the sewer.
+     */
+    int colAt(int x) {
+        return (int) Math.floor((x - originX) / scale);
+    }
+
+    /**
+     * Return the row under y-coordinate y of this panel. It may lie outside the sewer.
+     */
+    int rowAt(int y) {
+        return (int) Math.floor((y - originY) / scale);
+    }
+
+    /**
+     * Return the area of this panel in which to draw a sprite standing at (row, col), which
+     * may be between tiles. Sprites are at least MIN_SPRITE_SIZE pixels wide, centred on the
+     * tile.
+     */
+    Rectangle spriteBounds(double row, double col) {
+        int size = Math.max(TILE_WIDTH, MIN_SPRITE_SIZE);
+        double inset = (scale - size) / 2;
+        return new Rectangle(originX + (int) Math.floor(col * scale + inset),
+                originY + (int) Math.floor(row * scale + inset), size, size);
+    }
+
+    /**
+     * Return zoom s limited to the allowed range, and rounded down to a whole number if
+     * images are drawn at that zoom. The smallest zoom fits the sewer in the panel, or shows
+     * a tile per pixel if that is smaller.
+     */
+    private double clampScale(double s) {
+        double fit = Math.min((double) Math.max(1, getWidth()) / sewers.columnCount(),
+                (double) Math.max(1, getHeight()) / sewers.rowCount());
+        s = Math.max(Math.min(s, MAX_SCALE), Math.min(fit, 1));
+        return s >= LOD_SCALE ? Math.floor(s) : s;
+    }
+
+    /**
+     * Show the sewer at scale s pixels per tile, with the top-left corner of tile (0, 0) at
+     * (x, y). s is clamped to the allowed zoom range, and the origin is clamped so that some
+     * of the sewer stays in view.
+     */
+    private void setView(double s, int x, int y) {
+        int w = Math.max(1, getWidth()), h = Math.max(1, getHeight());
+        s = clampScale(s);
+        TILE_WIDTH = Math.max(1, (int) s);
+        TILE_HEIGHT = TILE_WIDTH;
+        int mapW = (int) Math.ceil(sewers.columnCount() * s);
+        int mapH = (int) Math.ceil(sewers.rowCount() * s);
+        x = Math.max(Math.min(x, w / 2), w / 2 - mapW);
+        y = Math.max(Math.min(y, h / 2), h / 2 - mapH);
+        int dx = x - originX, dy = y - originY;
+        originX = x;
+        originY = y;
+        if (frame != null && s == scale && frame.getWidth() == w && frame.getHeight() == h
+                && Math.abs(dx) < w && Math.abs(dy) < h) {
+            scrollLayers(dx, dy);
+        } else {
+            invalidateLayers();
+        }
+        scale = s;
         repaint();
+        if (gui.diver != null) {
+            gui.diver.repaint();
+        }
+    }
+
+    /**
+     * Zoom by factor, keeping the point (x, y) of the panel over the same spot of the sewer.
+     */
+    void zoomAt(int x, int y, double factor) {
+        double col = (x - originX) / scale;
+        double row = (y - originY) / scale;
+        double s = scale * factor;
+        if (s >= LOD_SCALE && factor != 1) {
+            // Whole-number zooms must still move by at least one pixel per tile
+            s = factor > 1 ? Math.max(s, Math.floor(scale) + 1) : Math.min(s, Math.ceil(scale) - 1);
+        }
+        s = clampScale(s);
+        fitted = false;
+        setView(s, x - (int) Math.round(col * s), y - (int) Math.round(row * s));
+    }
+
+    /**
+     * Move the view by (dx, dy) pixels.
+     */
+    void panBy(int dx, int dy) {
+        fitted = false;
+        setView(scale, originX + dx, originY + dy);
+    }
+
+    /**
+     * Show the whole sewer in a panel of size (width, height).
+     */
+    private void fitView(int width, int height) {
+        fitted = true;
+        double s = Math.min(width * 1.0 / sewers.columnCount(), height * 0.95 / sewers.rowCount());
+        setView(s, 0, 0);
+    }
+
+    /**
+     * If the view follows the diver and tile (row, col) is close to the edge of the view,
+     * recentre the view on it. An axis on which the whole sewer is in view is left alone.
+     */
+    void follow(int row, int col) {
+        if (!FOLLOW_DIVER) {
+            return;
+        }
+        int w = getWidth(), h = getHeight();
+        int x = tileX(col), y = tileY(row);
+        int mx = (int) (w * FOLLOW_MARGIN), my = (int) (h * FOLLOW_MARGIN);
+        int newX = originX, newY = originY;
+        if (sewers.columnCount() * scale > w && (x < mx || x + scale > w - mx)) {
+            newX = w / 2 - (int) ((col + 0.5) * scale);
+        }
+        if (sewers.rowCount() * scale > h && (y < my || y + scale > h - my)) {
+            newY = h / 2 - (int) ((row + 0.5) * scale);
+        }
+        if (newX != originX || newY != originY) {
+            setView(scale, newX, newY);
+        }
+    }
+
+    /**
+     * Set the sewers to c, with the coins taken from it recorded in cs, which this panel then
+     * owns
+     */
+    void setSewer(Sewers c, CoinState cs) {
+        sewers = c;
+        coins = cs;
+        invalidateLayers();
+        fitView(getWidth(), getHeight());
+    }
+
+    /**
+     * Throw away the cached layers so that the next paint rebuilds them.
+     */
+    private void invalidateLayers() {
+        staticLayer = null;
+        frame = null;
+        raster = null;
+    }
+
+    /**
+     * Mark tile (row, col) as needing to be redrawn and schedule a repaint of it.
+     */
+    void markDirty(int row, int col) {
+        dirtyTiles.set(row * sewers.columnCount() + col);
+        int x = tileX(col), y = tileY(row);
+        repaint(x, y, Math.max(1, tileX(col + 1) - x), Math.max(1, tileY(row + 1) - y));
     }
 
     /**
      * The screen size has changed. <br> Adjust the maze panel to (width, height).
      */
     void updateScreenSize(int width, int height) {
-        TILE_WIDTH = (int) (width * 1.0 / sewers.columnCount());
-        TILE_HEIGHT = (int) (height * 0.95 / sewers.rowCount());
-        // Force tiles to be square
-        TILE_WIDTH = Math.min(TILE_WIDTH, TILE_HEIGHT);
-        TILE_HEIGHT = Math.min(TILE_WIDTH, TILE_HEIGHT);
-        repaint();
+        setSize(width, height);
+        if (fitted) {
+            fitView(width, height);
+        } else {
+            setView(scale, originX, originY);
+        }
     }
 
     /**
@@ -180,6 +496,7 @@ public class MazePanel extends JPanel {
                 visited[i][j] = light;
             }
         }
+        dirtyTiles.set(0, sewers.rowCount() * sewers.columnCount());
         repaint();
     }
 
@@ -187,7 +504,10 @@ public class MazePanel extends JPanel {
      * Update the GUI to inform it that tile (row, col) was visited.
      */
     public void setVisited(int row, int col) {
-        visited[row][col] = true;
+        if (!visited[row][col]) {
+            visited[row][col] = true;
+            markDirty(row, col);
+        }
     }
 
     /**
@@ -212,11 +532,27 @@ public class MazePanel extends JPanel {
         }
     }
 
+    /**
+     * Take the coins on node n in the game being shown, and redraw its tile.
+     */
+    void takeCoins(Node n) {
+        if (coins.take(n.getTile()) > 0) {
+            markDirty(n.getTile().row(), n.getTile().column());
+        }
+    }
+
+    /**
+     * Return the value of the coins on node n in the game being shown.
+     */
+    int coinsOn(Node n) {
+        return coins.coins(n.getTile());
+    }
+
     /**
      * Return an icon for the coins on tile n, or null if no coins.
      */
     public BufferedImage getCoinsIcon(Node n) {
-        double cns = n.getTile().coins();
+        double cns = coinsOn(n);
 	    if (cns == Sewers.TASTY_VALUE) {
 		    return tasty;
 	    }
@@ -233,44 +569,262 @@ public class MazePanel extends JPanel {
     @Override
     public void paintComponent(Graphics page) {
         super.paintComponent(page);
-        for (int i = 0; i < getWidth(); i += 100) {
-            page.drawImage(background, i, 0, 100, getHeight(), null);
+        if (frame == null || frame.getWidth() != getWidth() || frame.getHeight() != getHeight()) {
+            buildLayers();
+        }
+        if (exitShown != gui.gameState.scramSucceeded()) {
+            exitShown = !exitShown;
+            Tile t = sewers.entrance().getTile();
+            dirtyTiles.set(t.row() * sewers.columnCount() + t.column());
+        }
+        composeDirtyTiles();
+        page.drawImage(frame, 0, 0, null);
+    }
+
+    /**
+     * Return a new image of size (w, h) in a format that is fast to draw on this panel.
+     */
+    private BufferedImage createLayer(int w, int h) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc == null) {
+            return new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        }
+        return gc.createCompatibleImage(w, h);
+    }
+
+    /**
+     * Return the range [first, last] of rows (if rows) or columns in view, clamped to the
+     * sewer. The range is empty (first > last) if none are in view.
+     */
+    private int[] visibleRange(boolean rows) {
+        int n = rows ? sewers.rowCount() : sewers.columnCount();
+        int extent = rows ? getHeight() : getWidth();
+        int first = Math.max(0, rows ? rowAt(0) : colAt(0));
+        int last = Math.min(n - 1, rows ? rowAt(extent - 1) : colAt(extent - 1));
+        return new int[] {first, last};
+    }
+
+    /**
+     * Draw the layers for the current sewer, view and panel size from scratch.
+     */
+    private void buildLayers() {
+        int w = Math.max(1, getWidth()), h = Math.max(1, getHeight());
+        if (scale < LOD_SCALE) {
+            staticLayer = null;
+            frame = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            raster = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        } else {
+            staticLayer = createLayer(w, h);
+            frame = createLayer(w, h);
+            raster = null;
+        }
+        drawRegion(new Rectangle(0, 0, w, h));
+        // Every tile in view is now up to date
+        dirtyTiles.clear();
+    }
+
+    /**
+     * Move the contents of the layers by (dx, dy) pixels and draw the strips this uncovers,
+     * instead of drawing the whole view again.
+     */
+    private void scrollLayers(int dx, int dy) {
+        int w = frame.getWidth(), h = frame.getHeight();
+        for (BufferedImage layer : new BufferedImage[] {staticLayer, frame}) {
+            if (layer != null) {
+                Graphics2D g = layer.createGraphics();
+                g.copyArea(0, 0, w, h, dx, dy);
+                g.dispose();
+            }
+        }
+        if (dx != 0) {
+            drawRegion(new Rectangle(dx > 0 ? 0 : w + dx, 0, Math.abs(dx), h));
+        }
+        if (dy != 0) {
+            drawRegion(new Rectangle(0, dy > 0 ? 0 : h + dy, w, Math.abs(dy)));
+        }
+    }
+
+    /**
+     * Draw area r of the layers from scratch.
+     */
+    private void drawRegion(Rectangle r) {
+        r = r.intersection(new Rectangle(0, 0, frame.getWidth(), frame.getHeight()));
+        if (r.isEmpty()) {
+            return;
         }
-        page.setColor(darkness);
+        if (raster != null) {
+            rasterizeRegion(r);
+            return;
+        }
+        int firstRow = Math.max(0, rowAt(r.y)), lastRow = Math.min(sewers.rowCount() - 1,
+                rowAt(r.y + r.height - 1));
+        int firstCol = Math.max(0, colAt(r.x)), lastCol = Math.min(sewers.columnCount() - 1,
+                colAt(r.x + r.width - 1));
+        Graphics2D g = staticLayer.createGraphics();
+        g.setClip(r);
+        for (int i = r.x / 100 * 100; i < r.x + r.width; i += 100) {
+            g.drawImage(background, i, 0, 100, frame.getHeight(), null);
+        }
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                boolean isWall = sewers.tileAt(row, col).type() == Tile.TileType.WALL;
+                g.drawImage(icon(isWall ? wall : path), tileX(col), tileY(row), null);
+            }
+        }
+        g.dispose();
+        g = frame.createGraphics();
+        g.setClip(r);
+        g.drawImage(staticLayer, 0, 0, null);
+        g.setColor(darkness);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                paintTile(g, row, col);
+            }
+        }
+        g.dispose();
+    }
 
-        // Draw the maze tiles
-        for (int row = 0; row < sewers.rowCount(); row++) {
-            for (int col = 0; col < sewers.columnCount(); col++) {
-                if (sewers.tileAt(row, col).type() == Tile.TileType.WALL) {
-                    page.drawImage(wall, TILE_WIDTH * col, TILE_HEIGHT * row,
-                            TILE_WIDTH, TILE_HEIGHT, null);
+    /**
+     * Set each pixel in area r of the low-zoom frame to the colour of the tile under it.
+     * Tiles are sampled, not averaged, so a tile narrower than a pixel may not show.
+     */
+    private void rasterizeRegion(Rectangle r) {
+        int w = frame.getWidth();
+        int rows = sewers.rowCount(), cols = sewers.columnCount();
+        int[] colOf = new int[r.width];
+        for (int x = 0; x < r.width; x++) {
+            colOf[x] = colAt(r.x + x);
+        }
+        for (int y = r.y; y < r.y + r.height; y++) {
+            int row = rowAt(y);
+            boolean rowIn = 0 <= row && row < rows;
+            for (int x = 0; x < r.width; x++) {
+                int col = colOf[x];
+                raster[y * w + r.x + x] = rowIn && 0 <= col && col < cols
+                        ? tileRgb(row, col) : backgroundRgb;
+            }
+        }
+    }
+
+    /**
+     * Return img scaled to the current tile size. Scaled images are cached until the zoom
+     * changes, so that tiles are drawn without scaling.
+     */
+    private BufferedImage icon(BufferedImage img) {
+        if (iconSize != TILE_WIDTH) {
+            icons.clear();
+            iconSize = TILE_WIDTH;
+        }
+        return icons.computeIfAbsent(img, i -> {
+            BufferedImage scaled = new BufferedImage(TILE_WIDTH, TILE_HEIGHT,
+                    BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = scaled.createGraphics();
+            g.drawImage(i, 0, 0, TILE_WIDTH, TILE_HEIGHT, null);
+            g.dispose();
+            return scaled;
+        });
+    }
+
+    /**
+     * Return the colour in which tile (row, col) is drawn at low zoom.
+     */
+    private int tileRgb(int row, int col) {
+        Tile tile = sewers.tileAt(row, col);
+        switch (tile.type()) {
+            case WALL:
+                return wallRgb;
+            case RING:
+                return ringRgb;
+            case ENTRANCE:
+                return exitShown ? exitRgb : entranceRgb;
+            default:
+                break;
+        }
+        int value = coins.coins(tile);
+        if (value > 0) {
+            return value == Sewers.TASTY_VALUE ? tastyRgb : coinRgb;
+        }
+        return visited[row][col] ? pathRgb : darkPathRgb;
+    }
+
+    /**
+     * Redraw the dirty tiles in view from the static layer and the current state of the game,
+     * and clear the dirty set. Tiles out of view are redrawn when they come into view.
+     */
+    private void composeDirtyTiles() {
+        if (dirtyTiles.isEmpty()) {
+            return;
+        }
+        int[] rows = visibleRange(true), cols = visibleRange(false);
+        int columns = sewers.columnCount();
+        Graphics2D g = raster == null ? frame.createGraphics() : null;
+        if (g != null) {
+            g.setColor(darkness);
+        }
+        for (int row = rows[0]; row <= rows[1]; row++) {
+            int end = row * columns + cols[1];
+            for (int i = dirtyTiles.nextSetBit(row * columns + cols[0]); i >= 0 && i <= end;
+                    i = dirtyTiles.nextSetBit(i + 1)) {
+                int col = i - row * columns;
+                if (g == null) {
+                    fillRasterTile(row, col);
                     continue;
                 }
+                int x = tileX(col), y = tileY(row);
+                g.drawImage(staticLayer, x, y, x + TILE_WIDTH, y + TILE_HEIGHT,
+                        x, y, x + TILE_WIDTH, y + TILE_HEIGHT, null);
+                paintTile(g, row, col);
+            }
+        }
+        if (g != null) {
+            g.dispose();
+        }
+        dirtyTiles.clear();
+    }
 
-                // Draw the path image to the background
-                page.drawImage(path, TILE_WIDTH * col, TILE_HEIGHT * row,
-                        TILE_WIDTH, TILE_HEIGHT, null);
-                // Darken this tile if the diver has not visited it yet
-                if (!visited[row][col]) {
-                    page.fillRect(TILE_WIDTH * col, TILE_HEIGHT * row,
-                            TILE_WIDTH, TILE_HEIGHT);
-                }
-                // If this is the ring-tile, draw the ring
-                if (sewers.tileAt(row, col).type() == Tile.TileType.RING) {
-                    page.drawImage(ring, TILE_WIDTH * col, TILE_HEIGHT * row,
-                            TILE_WIDTH, TILE_HEIGHT, null);
-                }
-                // If there is a coin here, draw it
-                if (sewers.tileAt(row, col).coins() > 0) {
-                    page.drawImage(getCoinsIcon(sewers.nodeAt(row, col)),
-                            TILE_WIDTH * col, TILE_HEIGHT * row,
-                            TILE_WIDTH, TILE_HEIGHT, null);
-                }
-                paintEntranceExit(page, row, col);
+    /**
+     * Set the pixels of the low-zoom frame that show tile (row, col) to its colour.
+     */
+    private void fillRasterTile(int row, int col) {
+        int w = frame.getWidth(), h = frame.getHeight();
+        int rgb = tileRgb(row, col);
+        // Pixel (x, y) shows the tile containing sewer point (x - originX, y - originY) / scale
+        int x0 = Math.max(0, originX + (int) Math.ceil(col * scale));
+        int x1 = Math.min(w, originX + (int) Math.ceil((col + 1) * scale));
+        int y0 = Math.max(0, originY + (int) Math.ceil(row * scale));
+        int y1 = Math.min(h, originY + (int) Math.ceil((row + 1) * scale));
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                raster[y * w + x] = rgb;
             }
         }
     }
 
+    /**
+     * Draw the parts of tile (row, col) that depend on the state of the game over its static
+     * image. page's color must be the darkness color.
+     */
+    private void paintTile(Graphics page, int row, int col) {
+        Tile tile = sewers.tileAt(row, col);
+        if (tile.type() == Tile.TileType.WALL) {
+            return;
+        }
+        int x = tileX(col), y = tileY(row);
+        // Darken this tile if the diver has not visited it yet
+        if (!visited[row][col]) {
+            page.fillRect(x, y, TILE_WIDTH, TILE_HEIGHT);
+        }
+        // If this is the ring-tile, draw the ring
+        if (tile.type() == Tile.TileType.RING) {
+            page.drawImage(icon(ring), x, y, null);
+        }
+        // If there is a coin here, draw it
+        if (coins.coins(tile) > 0) {
+            page.drawImage(icon(getCoinsIcon(sewers.nodeAt(row, col))), x, y, null);
+        }
+        paintEntranceExit(page, row, col);
+    }
+
     /**
      * If tile (row, col) is the entrance/exit, draw the graphic for it.
      */
@@ -279,20 +833,17 @@ public class MazePanel extends JPanel {
 	    if (sewers.tileAt(row, col).type() != Tile.TileType.ENTRANCE) {
 		    return;
 	    }
-        if (gui.gameState.scramSucceeded()) {
-            page.drawImage(path, TILE_WIDTH * col, TILE_HEIGHT * row,
-                    TILE_WIDTH, TILE_HEIGHT, null);
+        int x = tileX(col), y = tileY(row);
+        if (exitShown) {
+            page.drawImage(icon(path), x, y, null);
             if (!diverSpriteExitPainted) {
                 gui.diver.repaint();
                 diverSpriteExitPainted = true;
             }
-            page.drawImage(exitEnd, TILE_WIDTH * col, TILE_HEIGHT * row,
-                    TILE_WIDTH, TILE_HEIGHT, null);
-            // System.out.println("paintEntranceExit. drew exitEnd");
+            page.drawImage(icon(exitEnd), x, y, null);
             return;
         }
-        page.drawImage(entrance, TILE_WIDTH * col, TILE_HEIGHT * row,
-                TILE_WIDTH, TILE_HEIGHT, null);
+        page.drawImage(icon(entrance), x, y, null);
     }
 
 }
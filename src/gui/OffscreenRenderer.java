@@ -0,0 +1,122 @@
+package gui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.BitSet;
+
+import game.Sewers;
+import game.Tile;
+
+/**
+ * Draws a sewer and the state of a game in it into an image, with the same images as the GUI
+ * but without any Swing component, so that it works with java.awt.headless=true.
+ * <p>
+ * An instance is immutable and may be used by several threads at once.
+ */
+public final class OffscreenRenderer {
+
+    /**
+     * What to draw: a sewer, the tiles visited and whose coins have been taken (indexed by
+     * row * columnCount + column), whether unvisited tiles are lit, the diver's tile, and a
+     * caption to show under the sewer. The BitSets must not change once the scene is built.
+     */
+    public record Scene(Sewers sewers, BitSet visited, BitSet taken, boolean lit,
+                        int diverRow, int diverCol, String caption) {
+    }
+
+    /** Height (in pixels) of the caption bar under the sewer */
+    private static final int CAPTION_HEIGHT = 18;
+
+    /** Width and height (in pixels) of a tile in the rendered image */
+    private final int tileSize;
+
+    private final BufferedImage path, wall, ring, entrance, tasty, diver;
+
+    private final BufferedImage[][] coins;
+
+    private final Color darkness = new Color(0, 0, 0, (int) (256 - 256 * MazePanel.DARK_FACTOR));
+
+    /**
+     * Constructor: a renderer that draws tiles tileSize pixels wide and high.
+     */
+    public OffscreenRenderer(int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("tile size must be positive: " + tileSize);
+        }
+        this.tileSize = tileSize;
+        path = Assets.image(MazePanel.PATH_PATH);
+        wall = Assets.image(MazePanel.WALL_PATH);
+        ring = Assets.image(MazePanel.RING_PATH);
+        entrance = Assets.image(MazePanel.ENTRANCE_PATH);
+        tasty = Assets.image(MazePanel.TASTY_PATH);
+        coins = Assets.frames(MazePanel.COIN_PATH, 32, 32);
+        diver = Assets.frames(DiverSprite.SPRITE_SHEET, DiverSprite.SPRITE_WIDTH,
+                DiverSprite.SPRITE_HEIGHT)[0][0];
+    }
+
+    /**
+     * Return a new image of scene.
+     */
+    public BufferedImage render(Scene scene) {
+        Sewers sewers = scene.sewers();
+        int cols = sewers.columnCount();
+        int width = cols * tileSize, height = sewers.rowCount() * tileSize;
+        BufferedImage img = new BufferedImage(width, height + CAPTION_HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        for (int row = 0; row < sewers.rowCount(); row++) {
+            for (int col = 0; col < cols; col++) {
+                int x = col * tileSize, y = row * tileSize;
+                Tile tile = sewers.tileAt(row, col);
+                if (tile.type() == Tile.TileType.WALL) {
+                    g.drawImage(wall, x, y, tileSize, tileSize, null);
+                    continue;
+                }
+                g.drawImage(path, x, y, tileSize, tileSize, null);
+                int index = row * cols + col;
+                if (!scene.lit() && !scene.visited().get(index)) {
+                    g.setColor(darkness);
+                    g.fillRect(x, y, tileSize, tileSize);
+                }
+                if (tile.type() == Tile.TileType.RING) {
+                    g.drawImage(ring, x, y, tileSize, tileSize, null);
+                }
+                if (tile.originalCoinValue() > 0 && !scene.taken().get(index)) {
+                    g.drawImage(coinsIcon(tile.originalCoinValue()), x, y, tileSize, tileSize,
+                            null);
+                }
+                if (tile.type() == Tile.TileType.ENTRANCE) {
+                    g.drawImage(entrance, x, y, tileSize, tileSize, null);
+                }
+            }
+        }
+        g.drawImage(diver, scene.diverCol() * tileSize, scene.diverRow() * tileSize,
+                tileSize, tileSize, null);
+
+        g.setColor(Color.BLACK);
+        g.fillRect(0, height, width, CAPTION_HEIGHT);
+        g.setColor(Color.WHITE);
+        g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, CAPTION_HEIGHT - 6));
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.drawString(scene.caption(), 4, height + CAPTION_HEIGHT - 5);
+        g.dispose();
+        return img;
+    }
+
+    /**
+     * Return the image for a pile of value coins, as MazePanel.getCoinsIcon() does.
+     */
+    private BufferedImage coinsIcon(int value) {
+        if (value == Sewers.TASTY_VALUE) {
+            return tasty;
+        }
+        int sprites = MazePanel.COIN_SPRITES_PER_ROW * MazePanel.COIN_SPRITES_PER_COL;
+        int index = Math.min(sprites - 1, value * sprites / Sewers.MAX_COIN_VALUE);
+        return coins[index / MazePanel.COIN_SPRITES_PER_ROW][index
+                % MazePanel.COIN_SPRITES_PER_ROW];
+    }
+}
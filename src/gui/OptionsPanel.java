@@ -5,14 +5,12 @@ import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 import java.text.DecimalFormat;
 
-import javax.imageio.ImageIO;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
@@ -34,6 +32,7 @@ public class OptionsPanel extends JPanel implements ActionListener {
     private static double MIN_SPEED = 0.05, MAX_SPEED = 0.85;
 
     private JSlider speedSelect;
+    private JCheckBox instantSelect, followSelect;
     private JProgressBar stepsLeft;
     private JButton showSeed;
 
@@ -94,6 +93,16 @@ public class OptionsPanel extends JPanel implements ActionListener {
         speedSelect.addChangeListener((e) -> GUI.FRAMES_PER_MOVE = (int) (GUI.FRAMES_PER_SECOND *
                 Math.pow(10, -(double) speedSelect.getValue() / 1000.0)));
 
+        instantSelect = new JCheckBox("Instant moves", GUI.INSTANT);
+        instantSelect.setOpaque(false);
+        instantSelect.setAlignmentX(Box.CENTER_ALIGNMENT);
+        instantSelect.addItemListener((e) -> GUI.INSTANT = instantSelect.isSelected());
+
+        followSelect = new JCheckBox("Follow diver", MazePanel.FOLLOW_DIVER);
+        followSelect.setOpaque(false);
+        followSelect.setAlignmentX(Box.CENTER_ALIGNMENT);
+        followSelect.addItemListener((e) -> MazePanel.FOLLOW_DIVER = followSelect.isSelected());
+
         stepsLeft = new JProgressBar(0, 100);
         this.seed = seed;
 
@@ -103,6 +112,8 @@ public class OptionsPanel extends JPanel implements ActionListener {
         Box sliderBox = new Box(BoxLayout.Y_AXIS);
         sliderBox.add(speedLabel);
         sliderBox.add(speedSelect);
+        sliderBox.add(instantSelect);
+        sliderBox.add(followSelect);
         sliderBox.setOpaque(false);
 
         Box stepsLeftBox = new Box(BoxLayout.Y_AXIS);
@@ -145,11 +156,7 @@ public class OptionsPanel extends JPanel implements ActionListener {
         setBounds(x, y, width, height);
 
         // Load content
-        try {
-            background = ImageIO.read(new File(BACKGROUND_PATH));
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Can't find input file: " + e.toString());
-        }
+        background = Assets.image(BACKGROUND_PATH);
     }
 
     /**
@@ -1,10 +1,6 @@
 package gui;
 
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-
-import javax.imageio.ImageIO;
 
 /**
  * An instance maintains information about a sprite for the GUI. A sprite is defined by a
@@ -14,14 +10,10 @@ import javax.imageio.ImageIO;
 public class Sprite {
 
     /**
-     * The entire spritesheet
-     */
-    private BufferedImage spriteSheet;
-
-    /**
-     * Width and height of a single image on the spritesheet
+     * The images of the spritesheet: frames[r][c] is the image in row r and column c. Shared
+     * with every other Sprite for the same sheet.
      */
-    private int tileWidth, tileHeight;
+    private final BufferedImage[][] frames;
 
     /**
      * Number of images in a single animation
@@ -38,12 +30,10 @@ public class Sprite {
      * frames in the animation cycleSize.
      */
     public Sprite(String imageLoc, int width, int height, int cycleSize) {
-        tileWidth = width;
-        tileHeight = height;
         this.cycleSize = cycleSize;
         try {
-            spriteSheet = ImageIO.read(new File(imageLoc));
-        } catch (IOException e) {
+            frames = Assets.frames(imageLoc, width, height);
+        } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException(
                     "Creating sprite failed. " + imageLoc + " not found.");
         }
@@ -65,11 +55,6 @@ public class Sprite {
      * @param dCol the number of columns to offset into the spritesheet for the first animation
      */
     public BufferedImage getSprite(int dRow, int dCol) {
-        if (spriteSheet == null) {
-            throw new IllegalArgumentException(
-                    "Can't get sprite until you've initialized sprite sheet.");
-        }
-        return spriteSheet.getSubimage((dCol + cycle) * tileWidth, dRow * tileHeight, tileWidth,
-                tileHeight);
+        return frames[dRow][dCol + cycle];
     }
 }
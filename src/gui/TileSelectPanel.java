@@ -6,10 +6,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 
-import javax.imageio.ImageIO;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 
@@ -92,11 +89,7 @@ public class TileSelectPanel extends JPanel {
         setBounds(x, y, width, height);
 
         // Load content
-        try {
-            background = ImageIO.read(new File(BACKGROUND_PATH));
-        } catch (IOException e) {
-            throw new IllegalArgumentException("Can't find input file: " + e.toString());
-        }
+        background = Assets.image(BACKGROUND_PATH);
     }
 
     /**
@@ -153,7 +146,7 @@ public class TileSelectPanel extends JPanel {
             page.drawImage(pic, (int) (IMAGE_X * getWidth()), (int) (IMAGE_Y * getHeight()),
                     (int) (IMAGE_WIDTH * getWidth()), (int) (IMAGE_HEIGHT * getHeight()), null);
             // Draw the coin image
-            if (selectedNode.getTile().coins() > 0) {
+            if (gui.coinsOn(selectedNode) > 0) {
                 BufferedImage coinPic = gui.getCoinIcon(selectedNode);
                 page.drawImage(coinPic, (int) (IMAGE_X * getWidth()), (int) (IMAGE_Y * getHeight()),
                         (int) (IMAGE_WIDTH * getWidth()), (int) (IMAGE_HEIGHT * getHeight()), null);
@@ -171,7 +164,7 @@ public class TileSelectPanel extends JPanel {
             page.drawString(text, x, (int) (ROW_COL_Y * getHeight()));
 
             // Draw the value of the coins and the ID
-            text = "value: " + selectedNode.getTile().coins();
+            text = "value: " + gui.coinsOn(selectedNode);
             x = getTextXForCenter((Graphics2D) page, text, (int) (COIN_X * getWidth()),
                     (int) (COIN_WIDTH * getWidth()));
             page.drawString(text, x, (int) (COIN_ID_Y * getHeight()));
@@ -0,0 +1,44 @@
+package datastructures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+
+public class SpscQueueTest {
+    @Test void fifoAndBounded() {
+        SpscQueue<Integer> q = new SpscQueue<>(3);
+        assertEquals(4, q.capacity());
+        assertTrue(q.isEmpty());
+        assertNull(q.poll());
+        for (int i = 0; i < 4; i++) assertTrue(q.offer(i));
+        assertFalse(q.offer(4));
+        assertEquals(4, q.size());
+        assertEquals(0, q.poll());
+        assertTrue(q.offer(4));
+        for (int i = 1; i <= 4; i++) assertEquals(i, q.poll());
+        assertNull(q.poll());
+    }
+
+    @Test void handsOffBetweenThreads() throws InterruptedException {
+        SpscQueue<Integer> q = new SpscQueue<>(64);
+        int n = 5_000;
+        // Park briefly rather than spin, so that the other thread gets the CPU on one core
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < n; i++) {
+                while (!q.offer(i)) LockSupport.parkNanos(1_000);
+            }
+        });
+        producer.start();
+        for (int i = 0; i < n; i++) {
+            Integer e;
+            while ((e = q.poll()) == null) LockSupport.parkNanos(1_000);
+            assertEquals(i, e);
+        }
+        producer.join();
+        assertTrue(q.isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+public class CoinStateTest {
+    /** Return a tile of s with coins on it. */
+    private static Tile tileWithCoins(Sewers s) {
+        for (Node n : s.graph()) {
+            if (n.getTile().originalCoinValue() > 0) {
+                return n.getTile();
+            }
+        }
+        throw new AssertionError("no coins in sewer");
+    }
+
+    @Test
+    void gamesSharingASewerKeepTheirOwnCoins() throws Exception {
+        Sewers s = Sewers.digGetOutSewer(12, 16, 5, 5, new Random(3));
+        Tile t = tileWithCoins(s);
+        int value = t.originalCoinValue();
+        CoinState a = new CoinState(s), b = new CoinState(s);
+
+        CoinState previous = a.bind();
+        try {
+            assertEquals(value, t.takeCoins());
+            assertEquals(0, t.coins());
+            assertEquals(0, t.takeCoins());
+        } finally {
+            CoinState.restore(previous);
+        }
+        // Another game, on another thread, still sees the coins
+        int seenByB = CompletableFuture.supplyAsync(() -> {
+            CoinState p = b.bind();
+            try {
+                return t.coins();
+            } finally {
+                CoinState.restore(p);
+            }
+        }).get();
+        assertEquals(value, seenByB);
+        assertEquals(0, a.coins(t));
+
+        a.reset();
+        assertEquals(value, a.coins(t));
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        Sewers s = Sewers.digGetOutSewer(12, 16, 5, 5, new Random(3));
+        Tile t = tileWithCoins(s);
+        CoinState a = new CoinState(s);
+        a.take(t);
+        CoinState b = a.copy();
+        assertEquals(0, b.coins(t));
+        b.reset();
+        assertEquals(t.originalCoinValue(), b.coins(t));
+        assertEquals(0, a.coins(t));
+    }
+
+    @Test
+    void coinsWithoutABoundGameFail() {
+        Sewers s = Sewers.digGetOutSewer(12, 16, 5, 5, new Random(3));
+        Tile t = tileWithCoins(s);
+        assertThrows(IllegalStateException.class, t::takeCoins);
+        assertThrows(IllegalStateException.class, t::coins);
+        // A state bound for another sewer does not cover t
+        Sewers other = Sewers.digGetOutSewer(12, 16, 5, 5, new Random(4));
+        CoinState previous = new CoinState(other).bind();
+        try {
+            assertThrows(IllegalStateException.class, t::takeCoins);
+            assertThrows(IllegalStateException.class, t::coins);
+        } finally {
+            CoinState.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import graph.ShortestPaths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class ContractedMazeTest {
+    @Test
+    void contractedSearchesMatchFullSearches() {
+        Random rand = new Random(7);
+        for (long seed = 1; seed <= 5; seed++) {
+            Sewers s = SewerCache.generate(SewerCache.Key.of(seed)).scram();
+            ContractedMaze cm = ContractedMaze.of(s);
+            assertTrue(cm.junctionCount() < s.graph().size());
+            assertTrue(cm.isJunction(s.entrance()));
+
+            List<Node> nodes = new ArrayList<>(s.graph());
+            ShortestPaths<Node, Edge> full = new ShortestPaths<>(new Maze(s.graph()));
+            ContractedMaze.Search search = cm.search();
+            for (int i = 0; i < 20; i++) {
+                Node from = nodes.get(rand.nextInt(nodes.size()));
+                full.singleSourceDistances(from);
+                search.from(from);
+                for (int j = 0; j < 20; j++) {
+                    Node to = nodes.get(rand.nextInt(nodes.size()));
+                    assertEquals(full.getDistance(to), search.distance(to));
+                    // The expanded path is a walk from `from` to `to` of that length
+                    Node at = from;
+                    int length = 0;
+                    for (Edge e : search.path(to)) {
+                        assertEquals(at, e.source());
+                        at = e.destination();
+                        length += e.length();
+                    }
+                    assertEquals(to, at);
+                    assertEquals((int) full.getDistance(to), length);
+                }
+            }
+        }
+    }
+
+    @Test
+    void corridorsSumTheirCoins() {
+        Sewers s = SewerCache.generate(SewerCache.Key.of(3)).scram();
+        ContractedMaze cm = ContractedMaze.of(s);
+        int total = 0;
+        for (Node n : s.graph()) {
+            if (!cm.isJunction(n)) {
+                total += n.getTile().originalCoinValue();
+            }
+        }
+        int inCorridors = 0;
+        for (Node n : s.graph()) {
+            if (cm.isJunction(n)) {
+                for (ContractedMaze.Corridor c : cm.outgoingEdges(n)) {
+                    inCorridors += c.coins();
+                    if (c.edges().size() == 1) {
+                        assertEquals(0, c.coins());
+                    }
+                }
+            }
+        }
+        // Every corridor is there in both directions
+        assertEquals(2 * total, inCorridors);
+    }
+
+    @Test
+    void negativeIdsAreIndexedByNode() {
+        // A path a - b - c - d with a spur b - e, with negative ids
+        Node[] n = new Node[5];
+        for (int i = 0; i < n.length; i++) {
+            n[i] = new Node(-10 - i, new Tile(0, i, 0, Tile.TileType.FLOOR));
+        }
+        int[][] links = {{0, 1}, {1, 2}, {2, 3}, {1, 4}};
+        for (int[] l : links) {
+            n[l[0]].addEdge(new Edge(n[l[0]], n[l[1]], 2));
+            n[l[1]].addEdge(new Edge(n[l[1]], n[l[0]], 2));
+        }
+        Set<Node> graph = new HashSet<>(Arrays.asList(n));
+        assertEquals(-1, Maze.denseIdLimit(graph));
+        ContractedMaze cm = new ContractedMaze(graph, x -> false);
+        // c has two neighbors, so the junctions are a, b, d and e
+        assertEquals(4, cm.junctionCount());
+        assertFalse(cm.isJunction(n[2]));
+        ContractedMaze.Search search = cm.search();
+        search.from(n[0]);
+        assertEquals(6.0, search.distance(n[3]));
+        assertEquals(4.0, search.distance(n[4]));
+    }
+}
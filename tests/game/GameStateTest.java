@@ -0,0 +1,157 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import diver.McDiver;
+import diver.SewerDiver;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+public class GameStateTest {
+
+    /** A diver whose seek is seek and whose scram does nothing. */
+    private static SewerDiver seeker(Consumer<SeekState> seek) {
+        return new SewerDiver() {
+            @Override
+            public void seek(SeekState state) {
+                seek.accept(state);
+            }
+
+            @Override
+            public void scram(ScramState state) {
+            }
+        };
+    }
+
+    @Test
+    void overrunningDiverGetsPhaseTimeoutException() {
+        GameState.shouldPrint = false;
+        AtomicReference<RuntimeException> caught = new AtomicReference<>();
+        GameState state = new GameState(5, false, seeker(s -> {
+            try {
+                // Walk back and forth forever
+                while (true) {
+                    s.moveTo(s.neighbors().iterator().next().getId());
+                }
+            } catch (RuntimeException e) {
+                caught.set(e);
+                throw e;
+            }
+        }));
+        state.setTimeouts(100, 100, TimeUnit.MILLISECONDS);
+        state.runFindWithTimeout();
+        assertTrue(caught.get() instanceof GameState.PhaseTimeoutException, String.valueOf(caught.get()));
+        assertTrue(state.getSeekTimeout());
+        assertFalse(state.getSeekSucceeded());
+        assertFalse(state.getSeekErrored());
+    }
+
+    @Test
+    void abandonedThreadCannotChangeTheGame() throws Exception {
+        GameState.shouldPrint = false;
+        CountDownLatch release = new CountDownLatch(1), done = new CountDownLatch(1);
+        AtomicReference<RuntimeException> caught = new AtomicReference<>();
+        AtomicInteger phasesEnded = new AtomicInteger();
+        GameState state = new GameState(5, false, seeker(s -> {
+            // Ignore the deadline and the interrupt until released
+            while (release.getCount() > 0) {
+                Thread.interrupted();
+                Thread.onSpinWait();
+            }
+            Thread.interrupted();
+            try {
+                s.moveTo(s.neighbors().iterator().next().getId());
+            } catch (RuntimeException e) {
+                caught.set(e);
+            } finally {
+                done.countDown();
+            }
+        }));
+        state.addListener(new GameListener() {
+            @Override
+            public void phaseEnded(String phase, boolean succeeded, int score) {
+                phasesEnded.incrementAndGet();
+            }
+        });
+        state.setTimeouts(100, 100, TimeUnit.MILLISECONDS);
+        state.runFindWithTimeout();
+        assertTrue(state.getSeekTimeout());
+        GameResult before = state.result();
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        // Give the abandoned thread time to finish its phase
+        Thread.sleep(100);
+        assertTrue(caught.get() instanceof GameState.PhaseTimeoutException, String.valueOf(caught.get()));
+        assertEquals(0, phasesEnded.get());
+        assertFalse(state.getSeekSucceeded());
+        assertFalse(state.getSeekErrored());
+        assertEquals(before.score(), state.result().score());
+    }
+
+    @Test
+    void untimedPhaseAfterATimedOneRuns() {
+        GameState.shouldPrint = false;
+        GameState state = new GameState(5, false, new McDiver());
+        state.runFindWithTimeout();
+        assertTrue(state.getSeekSucceeded());
+        assertFalse(state.getSeekTimeout());
+        state.scram();
+        assertTrue(state.getScramSucceeded());
+        assertFalse(state.getScramErrored());
+        // And a whole untimed game after a timed one
+        state.run();
+        assertTrue(state.getSeekSucceeded());
+        assertTrue(state.getScramSucceeded());
+    }
+
+    @Test
+    void timedGameMatchesUntimedGame() {
+        GameState.shouldPrint = false;
+        GameState timed = new GameState(7, false, new McDiver());
+        timed.runWithTimeLimit();
+        GameResult untimed = GameState.runNewGame(7, false, new McDiver(), false, List.of());
+        assertEquals(untimed.score(), timed.result().score());
+        assertFalse(timed.getSeekTimeout());
+        assertFalse(timed.getScramTimeout());
+    }
+
+    @Test
+    void helperThreadsReadTheGamesCoins() {
+        GameState.shouldPrint = false;
+        McDiver mcDiver = new McDiver();
+        AtomicInteger checked = new AtomicInteger();
+        SewerDiver diver = new SewerDiver() {
+            @Override
+            public void seek(SeekState state) {
+                mcDiver.seek(state);
+            }
+
+            @Override
+            public void scram(ScramState state) {
+                // Step off the ring and back, taking any coins on the way
+                Node ring = state.currentNode();
+                state.moveTo(ring.getNeighbors().iterator().next());
+                state.moveTo(ring);
+                List<Node> nodes = List.copyOf(state.allNodes());
+                List<Integer> onPhaseThread = nodes.stream()
+                        .map(n -> n.getTile().coins()).toList();
+                List<Integer> onHelpers = nodes.parallelStream()
+                        .map(state::coinsOn).toList();
+                assertEquals(onPhaseThread, onHelpers);
+                checked.incrementAndGet();
+                mcDiver.scram(state);
+            }
+        };
+        GameResult result = GameState.runNewGame(5, false, diver);
+        assertEquals(1, checked.get());
+        assertTrue(result.scramSucceeded());
+    }
+}
@@ -0,0 +1,66 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import graph.ShortestPathTree;
+import graph.ShortestPaths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class GridBitboardTest {
+    /** Assert that the bitboard of s finds the same distances as Dijkstra from source. */
+    private static void assertMatchesDijkstra(Sewers s, Node source) {
+        GridBitboard board = GridBitboard.of(s);
+        assertNotNull(board);
+        ShortestPathTree<Node, Edge> tree = new ShortestPaths<>(new Maze(s.graph())).tree(source);
+        int[] field = board.distances(source);
+        for (int r = 0; r < s.rowCount(); r++) {
+            for (int c = 0; c < s.columnCount(); c++) {
+                Node n = s.nodeAt(r, c);
+                int expected = s.graph().contains(n) && tree.reaches(n)
+                        ? (int) tree.getDistance(n) : -1;
+                assertEquals(expected, field[r * s.columnCount() + c], "tile " + r + ", " + c);
+                if (s.graph().contains(n)) {
+                    assertEquals(expected, board.distance(source, n));
+                }
+            }
+        }
+    }
+
+    @Test
+    void distanceFieldsMatchDijkstraOnSeekSewers() {
+        Random rand = new Random(2);
+        for (long seed = 1; seed <= 6; seed++) {
+            Sewers s = SewerCache.generate(SewerCache.Key.of(seed)).seek();
+            List<Node> nodes = new ArrayList<>(s.graph());
+            assertMatchesDijkstra(s, s.ring());
+            assertMatchesDijkstra(s, nodes.get(rand.nextInt(nodes.size())));
+        }
+    }
+
+    @Test
+    void wavesCrossWordBoundaries() {
+        // Rooms wider than one word, including exactly 64 and 128 columns
+        Random rand = new Random(8);
+        for (int cols : new int[] {63, 64, 65, 128, 150}) {
+            Sewers s = JumpPointGridTest.room(9, cols, rand);
+            List<Node> nodes = new ArrayList<>(s.graph());
+            assertMatchesDijkstra(s, nodes.get(rand.nextInt(nodes.size())));
+        }
+    }
+
+    @Test
+    void minPathLengthToRingUsesTheField() {
+        Sewers s = SewerCache.generate(SewerCache.Key.of(4)).seek();
+        ShortestPaths<Node, Edge> dijkstra = new ShortestPaths<>(new Maze(s.graph()));
+        dijkstra.singleSourceDistances(s.ring());
+        for (Node n : s.graph()) {
+            assertEquals((int) dijkstra.getDistance(n), s.minPathLengthToRing(n));
+        }
+        assertNull(GridBitboard.of(SewerCache.generate(SewerCache.Key.of(4)).scram()));
+    }
+}
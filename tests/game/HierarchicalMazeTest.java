@@ -0,0 +1,69 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import graph.ShortestPaths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class HierarchicalMazeTest {
+    /** Assert that path is a walk from s to t and return its length. */
+    private static int walk(List<Edge> path, Node s, Node t) {
+        Node at = s;
+        int length = 0;
+        for (Edge e : path) {
+            assertEquals(at, e.source());
+            at = e.destination();
+            length += e.length();
+        }
+        assertEquals(t, at);
+        return length;
+    }
+
+    @Test
+    void routesAreWalksNoShorterThanShortestPaths() {
+        Random rand = new Random(5);
+        for (long seed = 1; seed <= 4; seed++) {
+            Sewers s = SewerCache.generate(SewerCache.Key.of(seed)).scram();
+            HierarchicalMaze hm = new HierarchicalMaze(s, 8);
+            HierarchicalMaze.Query q = hm.query();
+            ShortestPaths<Node, Edge> exact = new ShortestPaths<>(new Maze(s.graph()));
+            List<Node> nodes = new ArrayList<>(s.graph());
+            for (int i = 0; i < 40; i++) {
+                Node from = nodes.get(rand.nextInt(nodes.size()));
+                Node to = nodes.get(rand.nextInt(nodes.size()));
+                exact.singleSourceDistances(from);
+                double d = q.distance(from, to);
+                assertTrue(d >= exact.getDistance(to));
+                assertEquals(d, walk(q.path(from, to), from, to));
+            }
+            HierarchicalMaze.Quality quality = hm.compare(50, seed);
+            assertTrue(quality.meanStretch() >= 1 && quality.maxStretch() < 2, quality.toString());
+        }
+    }
+
+    @Test
+    void oneClusterIsExact() {
+        Sewers s = SewerCache.generate(SewerCache.Key.of(3)).scram();
+        HierarchicalMaze hm = new HierarchicalMaze(s,
+                Math.max(s.rowCount(), s.columnCount()));
+        assertEquals(1, hm.clusterCount());
+        assertEquals(0, hm.portalCount());
+        assertEquals(1.0, hm.compare(30, 1).maxStretch());
+    }
+
+    @Test
+    void rebuildingAClusterKeepsTheRoutes() {
+        Sewers s = SewerCache.generate(SewerCache.Key.of(2)).scram();
+        HierarchicalMaze hm = new HierarchicalMaze(s, 6);
+        int portals = hm.portalCount();
+        Node from = s.entrance(), to = s.ring();
+        double d = hm.query().distance(from, to);
+        hm.rebuild(to.getTile().row(), to.getTile().column());
+        assertEquals(portals, hm.portalCount());
+        assertEquals(d, hm.query().distance(from, to));
+    }
+}
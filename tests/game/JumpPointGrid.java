@@ -0,0 +1,267 @@
+package game;
+
+import graph.Heuristic;
+import graph.IndexedDigraph;
+import graph.SearchCounters;
+import graph.SearchStats;
+import graph.SearchWorkspace;
+import graph.ShortestPaths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Jump-point search over the grid of a sewer system whose edges all have length 1 and join
+ * exactly the orthogonally adjacent open tiles, as in the sewers dug by
+ * Sewers.digExploreSewer(). There, many shortest paths are the same moves in another order,
+ * and jump-point search considers only one of them: paths that turn from a vertical move to a
+ * horizontal one only where a wall forces it. A search then settles only the jump points,
+ * where such a path can turn, instead of every tile, and finds the same distances as
+ * ShortestPaths.
+ * <p>
+ * Kept with the tests, as a benchmark of the settled-vertex counts and a cross-check of the
+ * other searches: distances on unit grids are computed in production by GridBitboard.
+ * <p>
+ * Immutable, so any number of threads may search one grid at once.
+ */
+public final class JumpPointGrid {
+
+    /** Moves, by direction: north, south, west, east */
+    private static final int[] DR = {-1, 1, 0, 0}, DC = {0, 0, -1, 1};
+
+    private final int rows, cols;
+
+    /** Whether each tile is open, by row * cols + column */
+    private final boolean[] open;
+
+    private JumpPointGrid(Sewers sewers) {
+        rows = sewers.rowCount();
+        cols = sewers.columnCount();
+        open = new boolean[rows * cols];
+        for (Node n : sewers.graph()) {
+            open[n.getTile().row() * cols + n.getTile().column()] = true;
+        }
+    }
+
+    /**
+     * Return the jump-point grid of sewers, or null if it does not have a unit grid (see
+     * Sewers.hasUnitGrid()).
+     */
+    static JumpPointGrid of(Sewers sewers) {
+        return sewers.hasUnitGrid() ? new JumpPointGrid(sewers) : null;
+    }
+
+    /** Return whether (r, c) is an open tile. */
+    private boolean isOpen(int r, int c) {
+        return 0 <= r && r < rows && 0 <= c && c < cols && open[r * cols + c];
+    }
+
+    /**
+     * Return the length of a shortest path from s to t, or infinity if there is none,
+     * reporting the search to stats (one settled vertex per jump point expanded).
+     */
+    public double distance(Node s, Node t, SearchStats stats) {
+        if (s == t) {
+            return 0;
+        }
+        Jumps jumps = new Jumps(s, t);
+        return new ShortestPaths<>(jumps, stats, SearchWorkspace.forCurrentThread())
+                .pointToPoint(jumps.source, jumps.sink, jumps);
+    }
+
+    /** Return the length of a shortest path from s to t, or infinity if there is none. */
+    public double distance(Node s, Node t) {
+        return distance(s, t, SearchStats.NONE);
+    }
+
+    /** A jump between search states: from, to, and its length. */
+    private record Jump(int from, int to, int length) {
+    }
+
+    /**
+     * The graph searched for one query: a state is a tile reached moving in a direction, as
+     * tile * 4 + direction, and its edges are the jumps to the next jump points; plus a source
+     * state, from which the start tile is left in every direction, and a sink, which every
+     * state at the target tile leads to.
+     */
+    private final class Jumps implements IndexedDigraph<Integer, Jump>, Heuristic<Integer> {
+        final int source = 4 * rows * cols, sink = source + 1;
+        private final int sr, sc, tr, tc;
+
+        Jumps(Node s, Node t) {
+            sr = s.getTile().row();
+            sc = s.getTile().column();
+            tr = t.getTile().row();
+            tc = t.getTile().column();
+        }
+
+        public Iterable<Jump> outgoingEdges(Integer state) {
+            List<Jump> out = new ArrayList<>(4);
+            if (state == sink) {
+                return out;
+            }
+            int r, c;
+            if (state == source) {
+                r = sr;
+                c = sc;
+                for (int d = 0; d < 4; d++) {
+                    jump(state, r, c, d, out);
+                }
+                return out;
+            }
+            int tile = state / 4, dir = state % 4;
+            r = tile / cols;
+            c = tile % cols;
+            if (r == tr && c == tc) {
+                out.add(new Jump(state, sink, 0));
+                return out;
+            }
+            jump(state, r, c, dir, out);
+            if (dir >= 2) {
+                // Moving horizontally, turning north or south is natural
+                jump(state, r, c, 0, out);
+                jump(state, r, c, 1, out);
+            } else {
+                // Moving vertically, turning is forced where the tile behind has a wall beside
+                int br = r - DR[dir];
+                for (int d = 2; d < 4; d++) {
+                    if (isOpen(r, c + DC[d]) && !isOpen(br, c + DC[d])) {
+                        jump(state, r, c, d, out);
+                    }
+                }
+            }
+            return out;
+        }
+
+        /**
+         * Effect: add to out the jump from state, at (r, c), in direction d to the next jump
+         * point, if there is one.
+         */
+        private void jump(int state, int r, int c, int d, List<Jump> out) {
+            int length = 0;
+            while (true) {
+                int pr = r, pc = c;
+                r += DR[d];
+                c += DC[d];
+                length++;
+                if (!isOpen(r, c)) {
+                    return;
+                }
+                if (r == tr && c == tc || isJumpPoint(pr, pc, r, c, d)) {
+                    out.add(new Jump(state, (r * cols + c) * 4 + d, length));
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Return whether (r, c), reached from (pr, pc) moving in direction d, is a jump point:
+         * moving vertically, a horizontal turn is forced there; moving horizontally, a
+         * vertical scan from it finds a jump point or the target.
+         */
+        private boolean isJumpPoint(int pr, int pc, int r, int c, int d) {
+            if (d < 2) {
+                return isOpen(r, c - 1) && !isOpen(pr, c - 1)
+                        || isOpen(r, c + 1) && !isOpen(pr, c + 1);
+            }
+            for (int v = 0; v < 2; v++) {
+                int qr = r, qc = c;
+                while (true) {
+                    int br = qr;
+                    qr += DR[v];
+                    if (!isOpen(qr, qc)) {
+                        break;
+                    }
+                    if (qr == tr && qc == tc || isJumpPoint(br, qc, qr, qc, v)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        public Integer source(Jump j) { return j.from; }
+        public Integer dest(Jump j) { return j.to; }
+        public double weight(Jump j) { return j.length; }
+        public int vertexCount() { return sink + 1; }
+        public int index(Integer state) { return state; }
+
+        /** The Manhattan distance from a state's tile to the target */
+        @Override
+        public double estimate(Integer state) {
+            if (state == sink) {
+                return 0;
+            }
+            int tile = state == source ? sr * cols + sc : state / 4;
+            return Math.abs(tile / cols - tr) + Math.abs(tile % cols - tc);
+        }
+    }
+
+    /**
+     * The vertices settled by jump-point search, Dijkstra's algorithm (stopping at the
+     * target) and breadth-first search (stopping when the target is reached), over the same
+     * queries between connected tiles.
+     */
+    public record Comparison(int queries, long jumpSettled, long dijkstraSettled,
+            long bfsSettled) {
+        @Override
+        public String toString() {
+            return String.format("%d queries: %d jump points settled, against %d tiles for"
+                    + " Dijkstra and %d for BFS", queries, jumpSettled, dijkstraSettled,
+                    bfsSettled);
+        }
+    }
+
+    /**
+     * Return how many vertices jump-point search, Dijkstra's algorithm and breadth-first
+     * search settle over queries between random pairs of nodes of sewers, this grid's sewer
+     * system, chosen with a Random seeded with seed. The three must agree on every distance.
+     */
+    public Comparison compare(Sewers sewers, int queries, long seed) {
+        Random rand = new Random(seed);
+        List<Node> nodes = new ArrayList<>(sewers.graph());
+        SearchCounters jps = new SearchCounters(), dijkstra = new SearchCounters();
+        ShortestPaths<Node, Edge> exact = new ShortestPaths<>(new Maze(sewers.graph()),
+                dijkstra);
+        int[] dist = new int[rows * cols];
+        int[] queue = new int[rows * cols];
+        long bfs = 0;
+        int n = 0;
+        for (int i = 0; i < queries; i++) {
+            Node s = nodes.get(rand.nextInt(nodes.size())), t = nodes.get(rand.nextInt(nodes.size()));
+            double d = exact.pointToPoint(s, t, Heuristic.none());
+            if (d == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            if (distance(s, t, jps) != d) {
+                throw new IllegalStateException("jump-point search disagrees with Dijkstra from "
+                        + s.getTile() + " to " + t.getTile());
+            }
+            // Breadth-first search, counting the tiles taken off the queue
+            Arrays.fill(dist, -1);
+            int head = 0, tail = 0, goal = t.getTile().row() * cols + t.getTile().column();
+            queue[tail++] = s.getTile().row() * cols + s.getTile().column();
+            dist[queue[0]] = 0;
+            while (head < tail) {
+                int x = queue[head++];
+                bfs++;
+                if (x == goal) {
+                    break;
+                }
+                for (int k = 0; k < 4; k++) {
+                    int r = x / cols + DR[k], c = x % cols + DC[k];
+                    if (isOpen(r, c) && dist[r * cols + c] < 0) {
+                        dist[r * cols + c] = dist[x] + 1;
+                        queue[tail++] = r * cols + c;
+                    }
+                }
+            }
+            if (dist[goal] != d) {
+                throw new IllegalStateException("BFS disagrees with Dijkstra");
+            }
+            n++;
+        }
+        return new Comparison(n, jps.total().settled(), dijkstra.total().settled(), bfs);
+    }
+}
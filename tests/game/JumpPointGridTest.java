@@ -0,0 +1,102 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import graph.ShortestPathTree;
+import graph.ShortestPaths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class JumpPointGridTest {
+    @Test
+    void distancesMatchDijkstraOnSeekSewers() {
+        Random rand = new Random(9);
+        for (long seed = 1; seed <= 6; seed++) {
+            Sewers s = SewerCache.generate(SewerCache.Key.of(seed)).seek();
+            JumpPointGrid grid = JumpPointGrid.of(s);
+            assertNotNull(grid);
+            ShortestPaths<Node, Edge> exact = new ShortestPaths<>(new Maze(s.graph()));
+            List<Node> nodes = new ArrayList<>(s.graph());
+            for (int i = 0; i < 15; i++) {
+                Node from = nodes.get(rand.nextInt(nodes.size()));
+                exact.singleSourceDistances(from);
+                for (int j = 0; j < 15; j++) {
+                    Node to = nodes.get(rand.nextInt(nodes.size()));
+                    assertEquals(exact.getDistance(to), grid.distance(from, to));
+                }
+            }
+        }
+    }
+
+    /**
+     * Return a rows x cols sewer system of open rooms: every tile off the border is open with
+     * probability 0.75, with unit edges between adjacent open tiles. Tiles with no open
+     * neighbor are walls.
+     */
+    static Sewers room(int rows, int cols, Random rand) {
+        boolean[][] open = new boolean[rows][cols];
+        for (int r = 1; r < rows - 1; r++) {
+            for (int c = 1; c < cols - 1; c++) {
+                open[r][c] = rand.nextDouble() < 0.75;
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(rows + ":" + cols + ",trgt:-1");
+        long first = -1;
+        for (int r = 1; r < rows - 1; r++) {
+            for (int c = 1; c < cols - 1; c++) {
+                List<String> edges = new ArrayList<>();
+                for (int[] d : new int[][] {{-1, 0}, {1, 0}, {0, -1}, {0, 1}}) {
+                    if (open[r][c] && open[r + d[0]][c + d[1]]) {
+                        edges.add((r + d[0]) * cols + c + d[1] + "-1");
+                    }
+                }
+                if (!edges.isEmpty()) {
+                    long id = (long) r * cols + c;
+                    lines.add(id + "," + r + "," + c + ",0,"
+                            + (first < 0 ? "ENTRANCE" : "FLOOR") + "=" + String.join(",", edges));
+                    first = first < 0 ? id : first;
+                }
+            }
+        }
+        lines.set(0, rows + ":" + cols + ",trgt:" + first);
+        return Sewers.deserialize(lines);
+    }
+
+    @Test
+    void distancesMatchDijkstraInOpenRooms() {
+        // Generated sewers are mostly narrow tunnels, so also try rooms with scattered walls
+        Random rand = new Random(4);
+        for (int k = 0; k < 6; k++) {
+            Sewers s = room(14, 19, rand);
+            JumpPointGrid grid = JumpPointGrid.of(s);
+            assertNotNull(grid);
+            ShortestPaths<Node, Edge> exact = new ShortestPaths<>(new Maze(s.graph()));
+            for (Node from : s.graph()) {
+                ShortestPathTree<Node, Edge> tree = exact.tree(from);
+                for (Node to : s.graph()) {
+                    assertEquals(tree.reaches(to) ? tree.getDistance(to)
+                            : Double.POSITIVE_INFINITY, grid.distance(from, to));
+                }
+            }
+        }
+    }
+
+    @Test
+    void scramSewersHaveNoGrid() {
+        Sewers s = SewerCache.generate(SewerCache.Key.of(1)).scram();
+        assertNull(JumpPointGrid.of(s));
+    }
+
+    @Test
+    void settlesFewerThanDijkstraAndBfs() {
+        Sewers s = SewerCache.generate(SewerCache.Key.of(5)).seek();
+        JumpPointGrid.Comparison c = JumpPointGrid.of(s).compare(s, 100, 1);
+        assertTrue(c.jumpSettled() < c.dijkstraSettled(), c.toString());
+    }
+}
@@ -0,0 +1,78 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import diver.McDiver;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class MoveJournalTest {
+    @Test
+    void roundTrip() throws Exception {
+        Path file = Files.createTempFile("journal", ".bin");
+        Node a = new Node(new Tile(3, 4, 0, Tile.TileType.FLOOR), 40);
+        Node b = new Node(new Tile(3, 5, 120, Tile.TileType.FLOOR), 40);
+        Node c = new Node(new Tile(2, 5, 0, Tile.TileType.FLOOR), 40);
+        try (MoveJournal j = new MoveJournal(file)) {
+            j.gameStarted(-77);
+            j.phaseStarted("seek", null, a, 0);
+            j.moved(b, 1, 0);
+            j.moved(c, 2, 0);
+            j.phaseEnded("seek", true, 0);
+            j.phaseStarted("scram", null, c, 900);
+            j.moved(b, 885, 120);
+            j.moved(a, 870, 120);
+            j.phaseEnded("scram", false, 150);
+            j.gameEnded(new GameResult(-77, 150, 120, true, false, null, null));
+        }
+        List<MoveJournal.Game> games = MoveJournal.read(file);
+        assertEquals(1, games.size());
+        MoveJournal.Game g = games.get(0);
+        assertEquals(-77L, g.seed());
+        assertEquals(List.of(new MoveJournal.Move(b.getId(), 1, 0),
+                new MoveJournal.Move(c.getId(), 2, 0)), g.seekMoves());
+        assertEquals(List.of(new MoveJournal.Move(b.getId(), 885, 120),
+                new MoveJournal.Move(a.getId(), 870, 120)), g.scramMoves());
+        assertTrue(g.seekSucceeded());
+        assertEquals(false, g.scramSucceeded());
+        assertEquals(150, g.score());
+        assertEquals(120, g.coins());
+        Files.delete(file);
+    }
+
+    @Test
+    void replayReproducesScore() throws Exception {
+        Path file = Files.createTempFile("journal", ".bin");
+        GameState.shouldPrint = false;
+        GameResult played;
+        try (MoveJournal j = new MoveJournal(file)) {
+            played = GameState.runNewGame(5, false, new McDiver(), false, List.of(j));
+        }
+        List<MoveJournal.Game> games = MoveJournal.read(file);
+        assertEquals(1, games.size());
+        Replay.Outcome outcome = Replay.replay(games.get(0), false);
+        assertTrue(outcome.matches(), outcome.toString());
+        assertEquals(played.score(), outcome.result().score());
+        Files.delete(file);
+    }
+
+    @Test
+    void replayStoppingEarlyDiverges() {
+        Node a = new Node(new Tile(3, 4, 0, Tile.TileType.FLOOR), 40);
+        Node b = new Node(new Tile(3, 5, 0, Tile.TileType.FLOOR), 40);
+        Node c = new Node(new Tile(2, 5, 0, Tile.TileType.FLOOR), 40);
+        MoveJournal.Game game = new MoveJournal.Game(1, List.of(
+                new MoveJournal.Move(b.getId(), 1, 0), new MoveJournal.Move(c.getId(), 2, 0)),
+                List.of(), false, false, 0, 0);
+        Replay.Checker checker = new Replay.Checker(game);
+        checker.phaseStarted("seek", null, a, 0);
+        checker.moved(b, 1, 0);
+        assertNull(checker.divergence);
+        checker.phaseEnded("seek", false, 0);
+        assertEquals("seek stopped after 1 of 2 journaled moves.", checker.divergence);
+    }
+}
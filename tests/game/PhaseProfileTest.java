@@ -0,0 +1,89 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import diver.McDiver;
+import diver.SewerDiver;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class PhaseProfileTest {
+    @Test
+    void partsAddUpToTheCallback() throws Exception {
+        GameState.shouldPrint = false;
+        GameResult result = GameState.runNewGame(5, false, new McDiver(), true);
+        PhaseProfile seek = result.seekProfile().get();
+        assertTrue(seek.callbackNanos > 0);
+        assertTrue(seek.moves() > 0);
+        assertEquals(seek.callbackNanos,
+                seek.diverNanos() + seek.engineNanos() + seek.guiWaitNanos());
+        result.scramProfile().thenDo(scram -> assertEquals(scram.callbackNanos,
+                scram.diverNanos() + scram.engineNanos() + scram.guiWaitNanos()));
+    }
+
+    @Test
+    void countsMovesAndCallsOfEachPhase() throws Exception {
+        GameState.shouldPrint = false;
+        McDiver mcDiver = new McDiver();
+        int[] neighborsCalls = new int[1];
+        // McDiver, counting its calls to neighbors()
+        SewerDiver counting = new SewerDiver() {
+            @Override
+            public void seek(SeekState state) {
+                mcDiver.seek(new SeekState() {
+                    public long currentLocation() { return state.currentLocation(); }
+                    public int distanceToRing() { return state.distanceToRing(); }
+                    public void moveTo(long id) { state.moveTo(id); }
+                    public Collection<NodeStatus> neighbors() {
+                        neighborsCalls[0]++;
+                        return state.neighbors();
+                    }
+                });
+            }
+
+            @Override
+            public void scram(ScramState state) {
+                mcDiver.scram(state);
+            }
+        };
+        Map<String, Integer> moves = new HashMap<>();
+        GameListener moveCounter = new GameListener() {
+            private String phase;
+
+            @Override
+            public void phaseStarted(String phase, Sewers sewers, Node start, int steps) {
+                this.phase = phase;
+            }
+
+            @Override
+            public void moved(Node to, int steps, int coins) {
+                moves.merge(phase, 1, Integer::sum);
+            }
+        };
+        GameResult result = GameState.runNewGame(5, false, counting, true, List.of(moveCounter));
+        PhaseProfile seek = result.seekProfile().get(), scram = result.scramProfile().get();
+        assertEquals("seek", seek.phase());
+        assertEquals("scram", scram.phase());
+        assertEquals(moves.get("seek"), seek.moves());
+        assertEquals(moves.get("scram"), scram.moves());
+        assertEquals(neighborsCalls[0], seek.neighborsCalls());
+        assertEquals(0, scram.neighborsCalls());
+        for (PhaseProfile p : List.of(seek, scram)) {
+            assertTrue(p.wallNanos() >= p.callbackNanos, p.toString());
+            assertTrue(p.toString().startsWith(p.phase() + ": wall "), p.toString());
+        }
+    }
+
+    @Test
+    void unprofiledGamesHaveNoProfiles() {
+        GameState.shouldPrint = false;
+        GameResult result = GameState.runNewGame(5, false, new McDiver(), false);
+        assertFalse(result.seekProfile().isPresent());
+        assertFalse(result.scramProfile().isPresent());
+    }
+}
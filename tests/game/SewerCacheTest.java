@@ -0,0 +1,58 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import diver.McDiver;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+public class SewerCacheTest {
+    @Test
+    void cachedSewersAreTheGeneratedOnes() {
+        SewerCache cache = new SewerCache(64 << 20, null);
+        SewerCache.Entry e = cache.get(5);
+        assertSame(e, cache.get(5));
+        SewerCache.Entry fresh = SewerCache.generate(SewerCache.Key.of(5));
+        assertEquals(fresh.seek().serialize(), e.seek().serialize());
+        assertEquals(fresh.scram().serialize(), e.scram().serialize());
+        assertEquals(fresh.minSeekSteps(), e.minSeekSteps());
+    }
+
+    @Test
+    void leastRecentlyUsedIsEvictedAndSpilled() throws Exception {
+        Path dir = Files.createTempDirectory("sewer-cache");
+        long one = SewerCache.generate(SewerCache.Key.of(1)).footprint();
+        long two = SewerCache.generate(SewerCache.Key.of(2)).footprint();
+        long three = SewerCache.generate(SewerCache.Key.of(3)).footprint();
+        SewerCache cache = new SewerCache(Math.max(one + three, two + three), dir);
+        SewerCache.Entry e1 = cache.get(1);
+        cache.get(2);
+        assertSame(e1, cache.get(1));
+        cache.get(3);
+        // 2 was used least recently
+        assertTrue(cache.bytes() <= Math.max(one + three, two + three));
+        assertSame(e1, cache.get(1));
+        assertTrue(Files.exists(dir.resolve(SewerCache.Key.of(2).fileName())));
+
+        SewerCache.Entry e2 = cache.get(2);
+        SewerCache.Entry fresh = SewerCache.generate(SewerCache.Key.of(2));
+        assertEquals(fresh.seek().serialize(), e2.seek().serialize());
+        assertEquals(fresh.scram().serialize(), e2.scram().serialize());
+        assertEquals(fresh.minSeekSteps(), e2.minSeekSteps());
+    }
+
+    @Test
+    void gamesOnCachedSewersScoreAlike() {
+        GameState.shouldPrint = false;
+        SewerCache.Entry e = SewerCache.shared().get(5);
+        int first = GameState.runNewGame(5, false, new McDiver()).score();
+        assertSame(e, SewerCache.shared().get(5));
+        int second = GameState.runNewGame(5, false, new McDiver()).score();
+        assertEquals(first, second);
+        assertNotSame(e, SewerCache.generate(SewerCache.Key.of(5)));
+    }
+}
@@ -0,0 +1,29 @@
+package game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import graph.ShortestPathTree;
+import graph.ShortestPaths;
+import org.junit.jupiter.api.Test;
+
+public class SewersTest {
+    @Test
+    void distanceFieldsMatchDijkstra() {
+        for (long seed = 1; seed <= 3; seed++) {
+            SewerCache.Entry e = SewerCache.generate(SewerCache.Key.of(seed));
+            for (Sewers s : new Sewers[] {e.seek(), e.scram()}) {
+                ShortestPathTree<Node, Edge> tree =
+                        new ShortestPaths<>(new Maze(s.graph())).tree(s.entrance());
+                int[] field = s.distanceField(s.entrance());
+                for (int r = 0; r < s.rowCount(); r++) {
+                    for (int c = 0; c < s.columnCount(); c++) {
+                        Node n = s.nodeAt(r, c);
+                        int expected = s.graph().contains(n) && tree.reaches(n)
+                                ? (int) tree.getDistance(n) : -1;
+                        assertEquals(expected, field[r * s.columnCount() + c]);
+                    }
+                }
+            }
+        }
+    }
+}
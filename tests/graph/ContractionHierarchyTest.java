@@ -0,0 +1,39 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class ContractionHierarchyTest {
+    @Test
+    void queriesMatchDijkstra() {
+        for (long seed = 1; seed <= 3; seed++) {
+            RandomGraph g = new RandomGraph(12, 15, seed);
+            ContractionHierarchy<Integer, int[]> ch = ContractionHierarchy.build(g, g.vertices());
+            assertEquals(g.n, ch.stats().vertices());
+            ContractionHierarchy<Integer, int[]>.Query q = ch.query();
+            ShortestPaths<Integer, int[]> sp = new ShortestPaths<>(g);
+            for (int s = 0; s < g.n; s += 7) {
+                ShortestPathTree<Integer, int[]> tree = sp.tree(s);
+                for (int t = 0; t < g.n; t++) {
+                    if (!tree.reaches(t)) {
+                        assertEquals(Double.POSITIVE_INFINITY, q.distance(s, t));
+                        assertNull(q.path(s, t));
+                        continue;
+                    }
+                    assertEquals(tree.getDistance(t), q.distance(s, t));
+                    int at = s;
+                    double length = 0;
+                    for (int[] e : q.path(s, t)) {
+                        assertEquals(at, e[0]);
+                        at = e[1];
+                        length += e[2];
+                    }
+                    assertEquals(t, at);
+                    assertEquals(tree.getDistance(t), length);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+public class DeltaSteppingTest {
+    /** Assert that ds finds the distances from s that ShortestPaths finds in g. */
+    private static void assertMatches(RandomGraph g, DeltaStepping<Integer, int[]> ds, int s,
+            ForkJoinPool pool) {
+        ShortestPathTree<Integer, int[]> tree = new ShortestPaths<>(g).tree(s);
+        int[] d = ds.distances(s, pool);
+        for (int v = 0; v < g.n; v++) {
+            assertEquals(tree.reaches(v) ? (int) tree.getDistance(v) : DeltaStepping.UNREACHED,
+                    d[v], "vertex " + v + " with delta " + ds.delta());
+        }
+    }
+
+    @Test
+    void distancesMatchShortestPaths() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (long seed = 1; seed <= 3; seed++) {
+                RandomGraph g = new RandomGraph(20, 25, seed);
+                for (int delta : new int[] {1, 3, 9, 100}) {
+                    DeltaStepping<Integer, int[]> ds = new DeltaStepping<>(g, g.vertices(), delta);
+                    for (int s = 0; s < g.n; s += 97) {
+                        assertMatches(g, ds, s, pool);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void largeBucketsAreRelaxedInParallel() {
+        // Wide buckets on a big graph hold thousands of vertices, which are split among tasks
+        RandomGraph g = new RandomGraph(150, 150, 4);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int delta : new int[] {9, 50}) {
+                DeltaStepping<Integer, int[]> ds = new DeltaStepping<>(g, g.vertices(), delta);
+                assertMatches(g, ds, 0, pool);
+                assertMatches(g, ds, g.n / 2 + 75, pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsFractionalWeightsAndBadDelta() {
+        RandomGraph g = new RandomGraph(3, 3, 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> new DeltaStepping<>(g, g.vertices(), 0));
+        WeightedDigraph<Integer, int[]> halves = g;
+        IndexedDigraph<Integer, int[]> fractional = new IndexedDigraph<>() {
+            public Iterable<int[]> outgoingEdges(Integer v) { return halves.outgoingEdges(v); }
+            public Integer source(int[] e) { return e[0]; }
+            public Integer dest(int[] e) { return e[1]; }
+            public double weight(int[] e) { return e[2] + 0.5; }
+            public int vertexCount() { return g.vertexCount(); }
+            public int index(Integer v) { return v; }
+        };
+        assertThrows(IllegalArgumentException.class,
+                () -> new DeltaStepping<>(fractional, List.of(0, 1, 2, 3, 4, 5, 6, 7, 8), 5));
+    }
+}
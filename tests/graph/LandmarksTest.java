@@ -0,0 +1,127 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class LandmarksTest {
+    /**
+     * A winding symmetric graph on a rows x cols grid: each grid link is present with
+     * probability 0.7, with a weight 1 .. 15 shared by both directions. Edges are {src, dest,
+     * weight}.
+     */
+    static class GridGraph implements IndexedDigraph<Integer, int[]> {
+        final int rows, cols;
+        final List<List<int[]>> out = new ArrayList<>();
+
+        GridGraph(int rows, int cols, long seed) {
+            this.rows = rows;
+            this.cols = cols;
+            Random rand = new Random(seed);
+            for (int v = 0; v < rows * cols; v++) {
+                out.add(new ArrayList<>());
+            }
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    int v = r * cols + c;
+                    int[] next = {c + 1 < cols ? v + 1 : -1, r + 1 < rows ? v + cols : -1};
+                    for (int w : next) {
+                        if (w >= 0 && rand.nextDouble() < 0.7) {
+                            int weight = 1 + rand.nextInt(15);
+                            out.get(v).add(new int[] {v, w, weight});
+                            out.get(w).add(new int[] {w, v, weight});
+                        }
+                    }
+                }
+            }
+        }
+
+        /** The vertices on the edge of the grid */
+        List<Integer> border() {
+            List<Integer> vs = new ArrayList<>();
+            for (int v = 0; v < rows * cols; v++) {
+                int r = v / cols, c = v % cols;
+                if (r == 0 || c == 0 || r == rows - 1 || c == cols - 1) {
+                    vs.add(v);
+                }
+            }
+            return vs;
+        }
+
+        double manhattan(int a, int b) {
+            return Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols);
+        }
+
+        public Iterable<int[]> outgoingEdges(Integer v) { return out.get(v); }
+        public Integer source(int[] e) { return e[0]; }
+        public Integer dest(int[] e) { return e[1]; }
+        public double weight(int[] e) { return e[2]; }
+        public int vertexCount() { return rows * cols; }
+        public int index(Integer v) { return v; }
+    }
+
+    @Test
+    void pointToPointMatchesDijkstraAndSettlesLess() {
+        GridGraph g = new GridGraph(40, 40, 7);
+        Landmarks<Integer, int[]> lm = Landmarks.select(g, g.border(), 6, Long.MAX_VALUE,
+                (a, b) -> g.manhattan(a, b));
+        assertEquals(6, lm.landmarks().size());
+        assertEquals(6L * 4 * 1600, lm.bytes());
+
+        SearchCounters alt = new SearchCounters(), plain = new SearchCounters();
+        ShortestPaths<Integer, int[]> guided = new ShortestPaths<>(g, alt);
+        ShortestPaths<Integer, int[]> dijkstra = new ShortestPaths<>(g, plain);
+        Random rand = new Random(3);
+        for (int q = 0; q < 50; q++) {
+            int s = rand.nextInt(1600), t = rand.nextInt(1600);
+            ShortestPathTree<Integer, int[]> tree = dijkstra.tree(s);
+            double d = guided.pointToPoint(s, t, lm.toward(t));
+            if (!tree.reaches(t)) {
+                assertEquals(Double.POSITIVE_INFINITY, d);
+                continue;
+            }
+            assertEquals(tree.getDistance(t), d);
+            assertTrue(lm.toward(t).estimate(s) <= d);
+            int at = s;
+            double length = 0;
+            for (int[] e : guided.path(t)) {
+                assertEquals(at, e[0]);
+                at = e[1];
+                length += e[2];
+            }
+            assertEquals(t, at);
+            assertEquals(d, length);
+        }
+        assertTrue(alt.total().settled() < plain.total().settled() / 2,
+                alt.total() + " vs " + plain.total());
+    }
+
+    @Test
+    void heuristicIsConsistent() {
+        GridGraph g = new GridGraph(20, 25, 11);
+        Landmarks<Integer, int[]> lm = Landmarks.select(g, g.border(), 4, Long.MAX_VALUE,
+                (a, b) -> g.manhattan(a, b));
+        Heuristic<Integer> h = lm.toward(123);
+        for (int v = 0; v < g.vertexCount(); v++) {
+            for (int[] e : g.outgoingEdges(v)) {
+                assertTrue(h.estimate(e[0]) <= e[2] + h.estimate(e[1]));
+            }
+        }
+    }
+
+    @Test
+    void memoryLimitCapsLandmarkCount() {
+        GridGraph g = new GridGraph(10, 10, 1);
+        Landmarks<Integer, int[]> lm = Landmarks.select(g, g.border(), 8, 4 * 100 * 3 + 50,
+                (a, b) -> g.manhattan(a, b));
+        assertEquals(3, lm.landmarks().size());
+        Landmarks<Integer, int[]> none = Landmarks.select(g, g.border(), 8, 10,
+                (a, b) -> g.manhattan(a, b));
+        assertEquals(0, none.landmarks().size());
+        assertEquals(0.0, none.toward(5).estimate(50));
+    }
+}
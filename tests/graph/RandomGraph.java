@@ -0,0 +1,56 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A random directed graph on vertices 0 .. n - 1: a grid with each arc present with
+ * probability 0.8 and weights 1 .. 9, different in each direction. Edges are {src, dest,
+ * weight}. Shared by the tests of the graph algorithms that check themselves against
+ * ShortestPaths.
+ */
+class RandomGraph implements IndexedDigraph<Integer, int[]> {
+    final int n;
+    final List<List<int[]>> out = new ArrayList<>();
+
+    RandomGraph(int rows, int cols, long seed) {
+        Random rand = new Random(seed);
+        n = rows * cols;
+        for (int v = 0; v < n; v++) {
+            out.add(new ArrayList<>());
+        }
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int v = r * cols + c;
+                int[] next = {c + 1 < cols ? v + 1 : -1, r + 1 < rows ? v + cols : -1};
+                for (int w : next) {
+                    if (w < 0) {
+                        continue;
+                    }
+                    if (rand.nextDouble() < 0.8) {
+                        out.get(v).add(new int[] {v, w, 1 + rand.nextInt(9)});
+                    }
+                    if (rand.nextDouble() < 0.8) {
+                        out.get(w).add(new int[] {w, v, 1 + rand.nextInt(9)});
+                    }
+                }
+            }
+        }
+    }
+
+    List<Integer> vertices() {
+        List<Integer> vs = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            vs.add(v);
+        }
+        return vs;
+    }
+
+    public Iterable<int[]> outgoingEdges(Integer v) { return out.get(v); }
+    public Integer source(int[] e) { return e[0]; }
+    public Integer dest(int[] e) { return e[1]; }
+    public double weight(int[] e) { return e[2]; }
+    public int vertexCount() { return n; }
+    public int index(Integer v) { return v; }
+}
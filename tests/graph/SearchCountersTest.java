@@ -0,0 +1,40 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class SearchCountersTest {
+    @Test
+    void countsOneRun() {
+        SearchCounters counters = new SearchCounters();
+        ShortestPaths<String, int[]> ssp =
+                new ShortestPaths<>(ShortestPathsTest.testGraph1(), counters);
+        ssp.singleSourceDistances("a");
+        assertEquals(50, ssp.getDistance("g"));
+        SearchCounters.Counts last = counters.lastRun();
+        assertEquals(7, last.settled());
+        assertEquals(12, last.relaxed());
+        assertEquals(5, last.decreaseKeys());
+        assertEquals(3, last.peakFrontier());
+        assertTrue(last.nanos() >= 0);
+    }
+
+    @Test
+    void aggregatesRuns() {
+        SearchCounters counters = new SearchCounters();
+        ShortestPaths<String, int[]> ssp =
+                new ShortestPaths<>(ShortestPathsTest.testGraph1(), counters);
+        ssp.singleSourceDistances("a");
+        ssp.singleSourceDistances("f");
+        assertEquals(2, counters.runs());
+        assertEquals(2, counters.lastRun().settled());
+        assertEquals(9, counters.total().settled());
+        assertEquals(13, counters.total().relaxed());
+        assertTrue(counters.toJson().startsWith("{\"runs\":2,"));
+        String[] lines = counters.toCsv().split("\n");
+        assertEquals(SearchCounters.CSV_HEADER, lines[0]);
+        assertTrue(lines[2].startsWith("total,2,9,13,5,3,"));
+    }
+}
@@ -1,9 +1,11 @@
 package graph;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.junit.jupiter.api.Test;
@@ -56,6 +58,15 @@ public class ShortestPathsTest {
         public String dest(int[] edge) { return vertices[edge[1]]; }
         public double weight(int[] edge) { return edge[2]; }
     }
+    /** TestGraph with its vertices numbered by their position in vertices. */
+    static class IndexedTestGraph extends TestGraph implements IndexedDigraph<String, int[]> {
+        IndexedTestGraph(String[] vertices, int[][] edges) {
+            super(vertices, edges);
+        }
+        public int vertexCount() { return vertices.length; }
+        public int index(String vertex) { return List.of(vertices).indexOf(vertex); }
+    }
+
     static TestGraph testGraph1() {
         return new TestGraph(vertices1, edges1);
     }
@@ -90,5 +101,124 @@ public class ShortestPathsTest {
         assertEquals("best path: a c e f g", sb.toString());
     }
 
-    // TODO: Add 2 more tests
+    @Test
+    void indexedGraphsAgreeAndReuseTheirWorkspace() {
+        TestGraph plain = testGraph1();
+        IndexedTestGraph graph = new IndexedTestGraph(vertices1, edges1);
+        ShortestPaths<String, int[]> expected = new ShortestPaths<>(plain);
+        ShortestPaths<String, int[]> ssp = new ShortestPaths<>(graph);
+        // From a every vertex is reachable; from c, c to g
+        for (String source : new String[] {"a", "c"}) {
+            expected.singleSourceDistances(source);
+            ssp.singleSourceDistances(source);
+            for (String v : vertices1) {
+                if (source.compareTo(v) <= 0) {
+                    assertEquals(expected.getDistance(v), ssp.getDistance(v));
+                    assertEquals(expected.bestPath(v), ssp.bestPath(v));
+                }
+            }
+        }
+        ssp.singleSourceDistances("a");
+        assertEquals(50, ssp.getDistance("g"));
+        assertEquals(4, ssp.bestPath("g").size());
+    }
+
+    @Test
+    void treesSurviveLaterSearches() {
+        for (TestGraph graph : new TestGraph[] {testGraph1(),
+                new IndexedTestGraph(vertices1, edges1)}) {
+            ShortestPaths<String, int[]> ssp = new ShortestPaths<>(graph);
+            ShortestPathTree<String, int[]> fromA = ssp.tree("a");
+            ShortestPathTree<String, int[]> fromC = ssp.tree("c");
+            assertEquals("a", fromA.source());
+            assertEquals(50, fromA.getDistance("g"));
+            assertEquals(ssp.bestPath("g"), fromC.bestPath("g"));
+            assertEquals(4, fromA.bestPath("g").size());
+            assertEquals(0, fromC.bestPath("c").size());
+            assertEquals(false, fromC.reaches("a"));
+            assertEquals(true, fromC.reaches("d"));
+        }
+    }
+
+    @Test
+    void parallelTreesMatchSequentialSearches() {
+        IndexedTestGraph graph = new IndexedTestGraph(vertices1, edges1);
+        List<ShortestPathTree<String, int[]>> trees =
+                ShortestPaths.trees(graph, List.of(vertices1));
+        ShortestPaths<String, int[]> ssp = new ShortestPaths<>(graph);
+        for (int i = 0; i < vertices1.length; i++) {
+            ssp.singleSourceDistances(vertices1[i]);
+            assertEquals(vertices1[i], trees.get(i).source());
+            for (String v : vertices1) {
+                if (trees.get(i).reaches(v)) {
+                    assertEquals(ssp.getDistance(v), trees.get(i).getDistance(v));
+                    assertEquals(ssp.bestPath(v), trees.get(i).bestPath(v));
+                }
+            }
+        }
+    }
+
+    @Test
+    void pathsKnowTheirLengthAndEdges() {
+        for (TestGraph graph : new TestGraph[] {testGraph1(),
+                new IndexedTestGraph(vertices1, edges1)}) {
+            ShortestPaths<String, int[]> ssp = new ShortestPaths<>(graph);
+            ShortestPathTree<String, int[]> tree = ssp.tree("a");
+            Path<int[]> p = ssp.path("g");
+            assertEquals(50.0, p.length());
+            assertEquals(4, p.hops());
+            assertEquals(ssp.bestPath("g"), p.asList());
+            // A path outlives the search it came from
+            ssp.singleSourceDistances("d");
+            StringBuilder sb = new StringBuilder();
+            for (int[] e : p) {
+                sb.append(vertices1[e[0]]);
+            }
+            assertEquals("acef", sb.toString());
+            Path<int[]> fromTree = tree.path("g");
+            assertEquals(4, fromTree.hops());
+            assertEquals(p.asList(), fromTree.asList());
+            assertEquals(true, tree.path("a").isEmpty());
+        }
+    }
+
+    @Test
+    void sharedWorkspaceHoldsOnlyTheLastSearch() {
+        IndexedTestGraph graph = new IndexedTestGraph(vertices1, edges1);
+        SearchWorkspace ws = new SearchWorkspace();
+        ShortestPaths<String, int[]> first = new ShortestPaths<>(graph, SearchStats.NONE, ws);
+        ShortestPaths<String, int[]> second = new ShortestPaths<>(graph, SearchStats.NONE, ws);
+        first.singleSourceDistances("a");
+        assertEquals(14, first.getDistance("c"));
+        second.singleSourceDistances("c");
+        assertEquals(5, second.getDistance("d"));
+        assertThrows(IllegalStateException.class, () -> first.getDistance("c"));
+        assertThrows(IllegalStateException.class, () -> first.path("c"));
+    }
+
+    @Test
+    void staleResultsAreDetectedAfterTheWorkspaceGrows() {
+        IndexedTestGraph graph = new IndexedTestGraph(vertices1, edges1);
+        SearchWorkspace ws = new SearchWorkspace();
+        ShortestPaths<String, int[]> first = new ShortestPaths<>(graph, SearchStats.NONE, ws);
+        first.singleSourceDistances("a");
+        // A search over a bigger graph grows the arrays; its epoch must still be new
+        IndexedTestGraph bigger = new IndexedTestGraph(vertices1, edges1) {
+            @Override
+            public int vertexCount() {
+                return 1000;
+            }
+        };
+        new ShortestPaths<>(bigger, SearchStats.NONE, ws).singleSourceDistances("c");
+        assertThrows(IllegalStateException.class, () -> first.getDistance("c"));
+    }
+
+    @Test
+    void unsearchedOrUnreachedVerticesThrow() {
+        IndexedTestGraph graph = new IndexedTestGraph(vertices1, edges1);
+        ShortestPaths<String, int[]> ssp = new ShortestPaths<>(graph);
+        assertThrows(IllegalStateException.class, () -> ssp.getDistance("a"));
+        ssp.singleSourceDistances("c");
+        assertThrows(IllegalStateException.class, () -> ssp.getDistance("a"));
+    }
 }
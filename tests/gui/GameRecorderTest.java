@@ -0,0 +1,125 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import diver.McDiver;
+import game.GameListener;
+import game.GameState;
+import game.Node;
+import game.Sewers;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.junit.jupiter.api.Test;
+
+public class GameRecorderTest {
+
+    private static final int TILE = 8, MOVES_PER_FRAME = 25;
+
+    /** Counts the moves of each phase and remembers the size of the last sewer. */
+    private static final class MoveCounter implements GameListener {
+        final List<Integer> moves = new ArrayList<>();
+        Sewers sewers;
+
+        @Override
+        public void phaseStarted(String phase, Sewers sewers, Node start, int steps) {
+            this.sewers = sewers;
+            moves.add(0);
+        }
+
+        @Override
+        public void moved(Node to, int steps, int coins) {
+            moves.set(moves.size() - 1, moves.get(moves.size() - 1) + 1);
+        }
+
+        /** Return the frames a recorder taking one every k moves takes. */
+        int frames(int k) {
+            int n = 0;
+            for (int m : moves) {
+                n += 1 + m / k + (m % k == 0 ? 0 : 1);
+            }
+            return n;
+        }
+    }
+
+    /** Play game 5 with McDiver, recorded by recorder, and return its move counter. */
+    private static MoveCounter play(GameRecorder recorder) {
+        MoveCounter counter = new MoveCounter();
+        GameState.runNewGame(5, false, new McDiver(), false, List.of(counter, recorder));
+        return counter;
+    }
+
+    /** Delete dir and everything in it. */
+    private static void deleteTree(Path dir) throws Exception {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Test
+    void recordsPngFrames() throws Exception {
+        Path dir = Files.createTempDirectory("frames");
+        GameRecorder recorder = new GameRecorder(dir, GameRecorder.Format.PNG, TILE,
+                MOVES_PER_FRAME, 40);
+        MoveCounter counter;
+        try (recorder) {
+            counter = play(recorder);
+        }
+        int frames = counter.frames(MOVES_PER_FRAME);
+        assertEquals(frames, recorder.frames());
+        File[] files = dir.toFile().listFiles();
+        assertEquals(frames, files.length);
+        BufferedImage last = ImageIO.read(dir.resolve(
+                String.format("frame-%06d.png", frames - 1)).toFile());
+        assertEquals(counter.sewers.columnCount() * TILE, last.getWidth());
+        assertTrue(last.getHeight() > counter.sewers.rowCount() * TILE);
+        deleteTree(dir);
+    }
+
+    @Test
+    void recordsAnimatedGif() throws Exception {
+        Path file = Files.createTempFile("game", ".gif");
+        GameRecorder recorder = new GameRecorder(file, GameRecorder.Format.GIF, TILE,
+                MOVES_PER_FRAME, 40);
+        MoveCounter counter;
+        try (recorder) {
+            counter = play(recorder);
+        }
+        int frames = counter.frames(MOVES_PER_FRAME);
+        assertEquals(frames, recorder.frames());
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = ImageIO.getImageReaders(in).next();
+            reader.setInput(in);
+            assertEquals("gif", reader.getFormatName().toLowerCase(Locale.ROOT));
+            assertEquals(frames, reader.getNumImages(true));
+            reader.dispose();
+        }
+        Files.delete(file);
+    }
+
+    @Test
+    void formatDoesNotDependOnTheLocale() {
+        Locale saved = Locale.getDefault();
+        try {
+            // In Turkish, "GIF".toLowerCase() has a dotless i
+            Locale.setDefault(Locale.forLanguageTag("tr"));
+            assertEquals(GameRecorder.Format.GIF, GameRecorder.formatOf(Path.of("GAME.GIF")));
+            assertEquals(GameRecorder.Format.GIF, GameRecorder.formatOf(Path.of("game.gif")));
+            assertEquals(GameRecorder.Format.PNG, GameRecorder.formatOf(Path.of("frames")));
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+}